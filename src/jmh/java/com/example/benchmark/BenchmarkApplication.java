@@ -0,0 +1,115 @@
+package com.example.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.SLShopApplication;
+import com.example.cache.ReferenceData;
+import com.example.datagen.CatalogGenerator;
+import com.example.datagen.SyntheticCatalog;
+import com.example.product.ProductSearchIndex;
+
+/**
+ * ベンチマーク用のアプリケーション
+ *
+ * 組み込みDB（H2）でアプリケーションを起動し、指定件数の商品情報などを登録する（商品画像は作成しない）
+ */
+public final class BenchmarkApplication {
+
+    /** 合成データのシード */
+    private static final long SEED = 1L;
+
+    /** 登録する管理者情報の件数 */
+    public static final int USER_COUNT = 100;
+
+    /** 登録するカテゴリーの件数 */
+    public static final int CATEGORY_COUNT = 20;
+
+    /** 登録した管理者のパスワード */
+    public static final String PASSWORD = "password";
+
+    /** 起動毎に別のDBを使うための連番 */
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * アプリケーションを起動し、データを登録する
+     *
+     * @param catalogSize 商品情報の件数
+     * @param properties 追加の設定
+     * @return アプリケーション
+     */
+    public static ConfigurableApplicationContext start(int catalogSize, Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url",
+                "jdbc:h2:mem:bench" + SEQUENCE.incrementAndGet() + ";MODE=Oracle;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("logging.level.org.hibernate.SQL", "warn");
+        defaults.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "warn");
+        defaults.put("server.port", "0");
+        defaults.putAll(properties);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SLShopApplication.class)
+                .properties(defaults)
+                .run();
+        seed(context, catalogSize);
+        return context;
+    }
+
+    /**
+     * ブランド・カテゴリー・商品・ロール・管理者情報を登録する（同じ件数なら同じ内容）
+     */
+    private static void seed(ConfigurableApplicationContext context, int catalogSize) {
+        new CatalogGenerator(context.getBean(JdbcTemplate.class), catalog(catalogSize),
+                Runtime.getRuntime().availableProcessors())
+                .products(catalogSize)
+                .users(USER_COUNT)
+                .generate(context.getBean(PasswordEncoder.class).encode(PASSWORD));
+
+        // 起動時に構築したインデックス・参照データを登録後のデータで作り直す
+        context.getBean(ProductSearchIndex.class).rebuild();
+        context.getBean(ReferenceData.class).load();
+    }
+
+    /**
+     * 登録する合成データ（商品名などの取得に使う）
+     *
+     * @param catalogSize 商品情報の件数
+     * @return 合成データ
+     */
+    public static SyntheticCatalog catalog(int catalogSize) {
+        return new SyntheticCatalog(SEED, brandCount(catalogSize), CATEGORY_COUNT, 1.0);
+    }
+
+    /**
+     * 登録するブランドの件数
+     *
+     * @param catalogSize 商品情報の件数
+     * @return ブランドの件数
+     */
+    public static int brandCount(int catalogSize) {
+        return Math.max(10, catalogSize / 100);
+    }
+
+    /**
+     * 登録した管理者のメールアドレス（管理者IDが1の管理者は全てのロールを持つ）
+     *
+     * @param id 管理者ID
+     * @return メールアドレス
+     */
+    public static String email(int id) {
+        return catalog(0).email(id);
+    }
+
+}
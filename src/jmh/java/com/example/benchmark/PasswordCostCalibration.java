@@ -0,0 +1,57 @@
+package com.example.benchmark;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCryptのコストの計測（slshop.password.bcrypt-costを決める際に、本番と同じ性能のサーバーで一度だけ実行する）
+ *
+ * 照合時間が目標以下となる最大のコストを出力する。
+ * サーバー毎に起動時に決めると、サーバー間でコストが異なり、ログインの度に再ハッシュ化が繰り返されるため、
+ * 結果は設定ファイルに記載して全サーバーで共有する。
+ */
+public class PasswordCostCalibration {
+
+    /** 計測用のパスワード */
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+    /**
+     * 照合時間が目標以下となる最大のコストを求める
+     *
+     * 最小のコストでの照合時間を計測し、コストが1増える毎に照合時間が2倍になるものとして求める
+     *
+     * @param targetMillis 照合時間の目標（ミリ秒）
+     * @param minCost 最小のコスト
+     * @param maxCost 最大のコスト
+     * @return コスト
+     */
+    static int calibrate(long targetMillis, int minCost, int maxCost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minCost);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        // JITコンパイル前の計測を除くため、複数回のうち最短の時間を使う
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = Math.max(best / 1_000_000.0, 0.001);
+
+        int cost = minCost;
+        while (cost < maxCost && millis * 2 <= targetMillis) {
+            millis *= 2;
+            cost++;
+        }
+        System.out.println("bcrypt cost " + cost + " (estimated " + Math.round(millis) + " ms, target "
+                + targetMillis + " ms)");
+        return cost;
+    }
+
+    public static void main(String[] args) {
+        long targetMillis = Long.getLong("calibration.target-millis", 100L);
+        int minCost = Integer.getInteger("calibration.min-cost", 10);
+        int maxCost = Integer.getInteger("calibration.max-cost", 14);
+        int cost = calibrate(targetMillis, minCost, maxCost);
+        System.out.println("slshop.password.bcrypt-cost=" + cost);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.example.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.datagen.SyntheticCatalog;
+import com.example.entity.Product;
+import com.example.product.ProductService;
+
+/**
+ * 商品情報の処理のベンチマーク
+ *
+ * 検索結果キャッシュは無効にし、毎回検索する処理を計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    /** 商品情報の件数 */
+    @Param({ "1000", "10000" })
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    /** 検索キーワード（順番に使う） */
+    private String[] keywords;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(catalogSize,
+                Collections.singletonMap("slshop.search-cache.max-entries", "0"));
+        productService = context.getBean(ProductService.class);
+        SyntheticCatalog catalog = BenchmarkApplication.catalog(catalogSize);
+        keywords = new String[100];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = catalog.productName(1 + (i * 7919) % catalogSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> listAll() {
+        return productService.listAll(null);
+    }
+
+    @Benchmark
+    public List<Product> listAllByKeyword() {
+        return productService.listAll(keywords[next++ % keywords.length]);
+    }
+
+    @Benchmark
+    public boolean checkUniqueExisting() {
+        return productService.checkUnique(new Product(keywords[next++ % keywords.length]));
+    }
+
+    @Benchmark
+    public boolean checkUniqueNew() {
+        return productService.checkUnique(new Product("新商品"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isValid() {
+        return productService.isValid(keywords[next++ % keywords.length], "商品の説明");
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.example.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.datagen.SyntheticCatalog;
+import com.example.entity.Role;
+import com.example.entity.User;
+import com.example.user.UserService;
+
+/**
+ * 管理者情報の処理のベンチマーク
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    /** 商品情報の件数 */
+    @Param({ "1000" })
+    public int catalogSize;
+
+    /** BCryptのコスト */
+    @Param({ "10" })
+    public String bcryptCost;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private SyntheticCatalog catalog;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(catalogSize,
+                Collections.singletonMap("slshop.password.bcrypt-cost", bcryptCost));
+        userService = context.getBean(UserService.class);
+        catalog = BenchmarkApplication.catalog(catalogSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 新規登録（パスワードのハッシュ化を含む）
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public User saveNew() {
+        User user = new User("bench" + next++ + "@example.com", "ベンチ");
+        user.setPassword(BenchmarkApplication.PASSWORD);
+        return userService.save(user);
+    }
+
+    /**
+     * 更新（パスワードは変更しない）
+     */
+    @Benchmark
+    public User saveExisting() {
+        int id = 1 + next++ % BenchmarkApplication.USER_COUNT;
+        User user = new User(BenchmarkApplication.email(id), catalog.userName(id));
+        user.setId((long) id);
+        user.setPassword("");
+        Role role = new Role();
+        role.setId(2L);
+        user.addRole(role);
+        return userService.save(user);
+    }
+
+    @Benchmark
+    public boolean checkUnique() {
+        return userService.checkUnique(new User(BenchmarkApplication.email(1 + next++ % BenchmarkApplication.USER_COUNT)));
+    }
+
+}
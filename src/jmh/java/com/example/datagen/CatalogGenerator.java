@@ -0,0 +1,333 @@
+package com.example.datagen;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.SLShopApplication;
+import com.example.entity.ProductImagePaths;
+import com.example.product.ProductImageStore;
+
+/**
+ * 性能試験用の大量データの登録処理
+ *
+ * ブランド・カテゴリー・商品・ロール・管理者情報を、一定件数ずつのバッチで複数のスレッドから登録する。
+ * 各行の値は{@link SyntheticCatalog}から求めるため、同じシード・件数なら同じ内容になる。
+ * 商品画像は指定枚数を作成して商品画像の保存先（内容のハッシュ値をファイル名とする）に書き出し、商品に割り当てる。
+ *
+ * 登録先のテーブルは空である前提とする。
+ */
+public class CatalogGenerator {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogGenerator.class);
+
+    /** 1回のバッチで登録する件数 */
+    private static final int BATCH_SIZE = 1000;
+
+    /** 作成する商品画像のサイズ */
+    private static final int IMAGE_SIZE = 600;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SyntheticCatalog catalog;
+
+    private final int threads;
+
+    private int productCount;
+
+    private int userCount;
+
+    /** 商品画像の保存先（nullの場合は作成しない） */
+    private Path imageDir;
+
+    private int imageCount;
+
+    /** 画像のある商品の割合 */
+    private double imageRatio = 0.8;
+
+    public CatalogGenerator(JdbcTemplate jdbcTemplate, SyntheticCatalog catalog, int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalog = catalog;
+        this.threads = threads;
+    }
+
+    public CatalogGenerator products(int productCount) {
+        this.productCount = productCount;
+        return this;
+    }
+
+    public CatalogGenerator users(int userCount) {
+        this.userCount = userCount;
+        return this;
+    }
+
+    public CatalogGenerator images(Path imageDir, int imageCount, double imageRatio) {
+        this.imageDir = imageDir;
+        this.imageCount = imageCount;
+        this.imageRatio = imageRatio;
+        return this;
+    }
+
+    /**
+     * データを登録する
+     *
+     * @param encodedPassword 全管理者に設定するハッシュ化済みのパスワード（件数分のハッシュ化を避けるため共通にする）
+     */
+    public void generate(String encodedPassword) {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<String> images = createImages(executor);
+
+            insert(executor, "INSERT INTO BRANDS (ID, NAME) VALUES (?, ?)", catalog.getBrandCount(),
+                    id -> new Object[] { id, catalog.brandName(id) });
+            insert(executor, "INSERT INTO CATEGORIES (ID, NAME) VALUES (?, ?)", catalog.getCategoryCount(),
+                    id -> new Object[] { id, catalog.categoryName(id) });
+            insert(executor, "INSERT INTO PRODUCTS (ID, NAME, DESCRIPTION, PRICE, IMAGE, LENGTH, WIDTH, HEIGHT,"
+                    + " WEIGHT, BRAND_ID, CATEGORY_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", productCount, id -> {
+                        int image = catalog.imageOf(id, images.size(), imageRatio);
+                        return new Object[] { id, catalog.productName(id), catalog.productDescription(id),
+                                catalog.price(id), image < 0 ? null : images.get(image),
+                                catalog.size(id, 0, 200), catalog.size(id, 1, 200), catalog.size(id, 2, 200),
+                                catalog.size(id, 3, 5000), catalog.brandOf(id), catalog.categoryOf(id) };
+                    });
+
+            List<Object[]> roles = new ArrayList<>();
+            roles.add(new Object[] { 1, "管理者", "Admin" });
+            roles.add(new Object[] { 2, "アシスタント", "Assistant" });
+            jdbcTemplate.batchUpdate("INSERT INTO ROLES (ID, NAME, DESCRIPTION) VALUES (?, ?, ?)", roles);
+            insert(executor, "INSERT INTO USERS (ID, EMAIL, PASSWORD, NAME, NAME_NORMALIZED) VALUES (?, ?, ?, ?, ?)",
+                    userCount, id -> new Object[] { id, catalog.email(id), encodedPassword, catalog.userName(id),
+                            catalog.userNameNormalized(id) });
+            List<Object[]> usersRoles = new ArrayList<>();
+            for (long id = 1; id <= userCount; id++) {
+                for (int role : catalog.rolesOf(id)) {
+                    usersRoles.add(new Object[] { id, role });
+                }
+            }
+            insert(executor, "INSERT INTO USERS_ROLES (USER_ID, ROLE_ID) VALUES (?, ?)", usersRoles.size(),
+                    index -> usersRoles.get((int) index - 1));
+        } finally {
+            executor.shutdown();
+        }
+
+        // 登録したIDの続きから採番する
+        restart("BRANDS_ID_SEQ", catalog.getBrandCount() + 1);
+        restart("CATEGORIES_ID_SEQ", catalog.getCategoryCount() + 1);
+        restart("PRODUCTS_ID_SEQ", productCount + 1);
+        restart("ROLES_ID_SEQ", 3);
+        restart("USERS_ID_SEQ", userCount + 1);
+        LOGGER.info("Catalog generated: " + productCount + " products, " + catalog.getBrandCount() + " brands, "
+                + catalog.getCategoryCount() + " categories, " + userCount + " users, " + imageCount + " images in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 1からcountまでのIDの行を、一定件数ずつ並列に登録する
+     */
+    private void insert(ExecutorService executor, String sql, long count, LongFunction<Object[]> row) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long from = 1; from <= count; from += BATCH_SIZE) {
+            long first = from;
+            long last = Math.min(count, from + BATCH_SIZE - 1);
+            tasks.add(() -> {
+                List<Object[]> rows = new ArrayList<>((int) (last - first + 1));
+                for (long id = first; id <= last; id++) {
+                    rows.add(row.apply(id));
+                }
+                jdbcTemplate.batchUpdate(sql, rows);
+                return null;
+            });
+        }
+        invokeAll(executor, tasks);
+    }
+
+    /**
+     * 商品画像を作成して書き出す
+     *
+     * @return 画像のファイル名（画像の番号順）
+     */
+    private List<String> createImages(ExecutorService executor) {
+        List<String> names = new ArrayList<>();
+        if (imageDir == null || imageCount == 0) {
+            return names;
+        }
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < imageCount; i++) {
+            int index = i;
+            tasks.add(() -> writeImage(index));
+        }
+        for (Future<String> future : invokeAll(executor, tasks)) {
+            names.add(getResult(future));
+        }
+        return names;
+    }
+
+    /**
+     * 画像の番号から決まる図形を描いたJPEG画像を書き出す（保存済みの場合は書き出さない）
+     */
+    private String writeImage(int index) throws IOException {
+        BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(color(index, 0));
+            g.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+            for (int shape = 1; shape <= 6; shape++) {
+                g.setColor(color(index, shape * 10));
+                int x = (int) (catalog.imageUniform(index, shape * 10 + 3) * IMAGE_SIZE * 0.7);
+                int y = (int) (catalog.imageUniform(index, shape * 10 + 4) * IMAGE_SIZE * 0.7);
+                int size = (int) (IMAGE_SIZE * (0.1 + catalog.imageUniform(index, shape * 10 + 5) * 0.3));
+                if (shape % 2 == 0) {
+                    g.fillOval(x, y, size, size);
+                } else {
+                    g.fillRect(x, y, size, size);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        byte[] bytes = out.toByteArray();
+
+        String fileName = toHex(sha256().digest(bytes)) + ".jpeg";
+        Path target = imageDir.resolve(ProductImagePaths.blobDir(fileName) + fileName);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            Files.write(target, bytes);
+        }
+        return fileName;
+    }
+
+    private Color color(int index, int salt) {
+        return new Color((int) (catalog.imageUniform(index, salt) * 256),
+                (int) (catalog.imageUniform(index, salt + 1) * 256),
+                (int) (catalog.imageUniform(index, salt + 2) * 256));
+    }
+
+    /**
+     * シーケンスの次の値を変更する（H2の構文で失敗した場合はOracle 18c以降の構文で実行する）
+     */
+    private void restart(String sequence, long next) {
+        try {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+        } catch (DataAccessException e) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART START WITH " + next);
+        }
+    }
+
+    private static <T> List<Future<T>> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        List<Future<T>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        for (Future<T> future : futures) {
+            getResult(future);
+        }
+        return futures;
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 設定（spring.datasource.*）のDBにデータを登録する
+     *
+     * 件数などはシステムプロパティ（datagen.*）で指定する。テーブルは作成済みで空である前提とする。
+     *
+     * @param args アプリケーションの引数
+     */
+    public static void main(String[] args) {
+        int products = Integer.getInteger("datagen.products", 1_000_000);
+        int brands = Integer.getInteger("datagen.brands", Math.max(10, products / 100));
+        int categories = Integer.getInteger("datagen.categories", 40);
+        int users = Integer.getInteger("datagen.users", 1000);
+        int images = Integer.getInteger("datagen.images", 1000);
+        long seed = Long.getLong("datagen.seed", 1L);
+        double skew = Double.parseDouble(System.getProperty("datagen.brand-skew", "1.0"));
+        int threads = Integer.getInteger("datagen.threads", Runtime.getRuntime().availableProcessors());
+        String password = System.getProperty("datagen.password", "password");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SLShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.hikari.maximum-pool-size=" + threads)
+                .run(args);
+        try {
+            Path imageDir = context.getBean(ProductImageStore.class).getRootDir();
+            new CatalogGenerator(context.getBean(JdbcTemplate.class),
+                    new SyntheticCatalog(seed, brands, categories, skew), threads)
+                    .products(products)
+                    .users(users)
+                    .images(imageDir, images, 0.8)
+                    .generate(context.getBean(PasswordEncoder.class).encode(password));
+        } finally {
+            context.close();
+        }
+    }
+
+}
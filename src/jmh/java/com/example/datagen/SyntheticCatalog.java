@@ -0,0 +1,287 @@
+package com.example.datagen;
+
+import com.example.entity.User;
+
+/**
+ * シードから決まる合成データの各項目の値
+ *
+ * 各項目の値はシードとIDのハッシュ値のみから求めるため、登録の順序・並列度に関わらず同じシードなら同じ内容になる。
+ * ブランドはZipf分布（少数のブランドに商品が集中する）で割り当てる。
+ */
+public class SyntheticCatalog {
+
+    /** 商品名に使う名詞（IDと合わせて10文字以内にするため3文字以内） */
+    private static final String[] PRODUCT_NOUNS = { "椅子", "机", "ソファ", "棚", "時計", "照明", "鏡", "ラグ", "寝具",
+            "食器", "花瓶", "鞄", "靴", "帽子", "傘", "財布", "手帳", "ペン", "茶碗", "急須", "皿", "箸", "鍋", "包丁", "枕",
+            "毛布", "暖簾", "扇子", "手袋", "靴下", "シャツ", "上着", "腕輪", "指輪", "香水", "石鹸", "タオル", "マグ",
+            "ノート", "文具" };
+
+    private static final String[] STYLES = { "北欧風の", "和モダンな", "シンプルな", "レトロな", "上品な", "素朴な",
+            "軽量な", "大きめの", "小ぶりな", "定番の", "限定の", "職人手作りの" };
+
+    private static final String[] MATERIALS = { "オーク材", "ひのき", "竹", "ステンレス", "真鍮", "陶器", "ガラス",
+            "綿", "麻", "ウール", "革", "和紙" };
+
+    private static final String[] FEATURES = { "長く使えます。", "贈り物にも最適です。", "毎日の暮らしに。",
+            "お手入れが簡単です。", "丈夫で軽いです。", "色違いもあります。", "国内で製造しています。" };
+
+    /** ブランド名に使うカタカナ */
+    private static final String[] SYLLABLES = { "ア", "イ", "ウ", "エ", "オ", "カ", "キ", "ク", "ケ", "コ", "サ", "シ",
+            "ス", "セ", "ソ", "タ", "チ", "ツ", "テ", "ト", "ナ", "ニ", "ヌ", "ネ", "ノ", "ハ", "ヒ", "フ", "ヘ", "ホ",
+            "マ", "ミ", "ム", "メ", "モ", "ヤ", "ユ", "ヨ", "ラ", "リ" };
+
+    private static final String[] BRAND_SUFFIXES = { "", "", "", "堂", "工房", "商店", "屋" };
+
+    private static final String[] CATEGORY_NAMES = { "家具", "照明", "寝具", "収納", "キッチン用品", "食器",
+            "インテリア雑貨", "ファッション", "バッグ・財布", "靴", "アクセサリー", "文房具", "生活雑貨", "バス用品",
+            "ガーデニング", "アウトドア", "ベビー・キッズ", "ペット用品", "家電", "美容・コスメ" };
+
+    private static final String[] FAMILY_NAMES = { "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "山本", "中村",
+            "小林", "加藤", "吉田", "山田", "佐々木", "山口", "松本", "井上", "木村", "林", "斎藤", "清水" };
+
+    private static final String[] GIVEN_NAMES = { "太郎", "花子", "健太", "陽菜", "翔太", "結衣", "大輔", "美咲",
+            "拓也", "さくら", "蓮", "葵", "悠真", "凛", "湊", "芽依", "一郎", "由美", "直樹", "恵子" };
+
+    private final long seed;
+
+    private final int brandCount;
+
+    /** ブランドの累積分布（Zipf分布） */
+    private final double[] brandCdf;
+
+    private final int categoryCount;
+
+    /**
+     * @param seed シード
+     * @param brandCount ブランドの件数
+     * @param categoryCount カテゴリーの件数
+     * @param brandSkew ブランドの偏り（Zipf分布の指数。0で一様）
+     */
+    public SyntheticCatalog(long seed, int brandCount, int categoryCount, double brandSkew) {
+        this.seed = seed;
+        this.brandCount = brandCount;
+        this.categoryCount = categoryCount;
+        this.brandCdf = new double[brandCount];
+        double total = 0;
+        for (int rank = 1; rank <= brandCount; rank++) {
+            total += 1 / Math.pow(rank, brandSkew);
+            brandCdf[rank - 1] = total;
+        }
+        for (int i = 0; i < brandCount; i++) {
+            brandCdf[i] /= total;
+        }
+    }
+
+    public int getBrandCount() {
+        return brandCount;
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * 商品名（10文字以内で、IDごとに一意）
+     *
+     * @param id 商品ID
+     * @return 商品名
+     */
+    public String productName(long id) {
+        String number = String.valueOf(id);
+        String noun = pick(PRODUCT_NOUNS, id, 1);
+        int room = 10 - number.length();
+        if (room <= 0) {
+            return number.substring(Math.max(0, number.length() - 10));
+        }
+        return (noun.length() > room ? noun.substring(0, room) : noun) + number;
+    }
+
+    /**
+     * 商品説明（50文字以内）
+     *
+     * @param id 商品ID
+     * @return 商品説明
+     */
+    public String productDescription(long id) {
+        return truncate(pick(STYLES, id, 2) + pick(MATERIALS, id, 3) + "の" + pick(PRODUCT_NOUNS, id, 1) + "。"
+                + pick(FEATURES, id, 4), 50);
+    }
+
+    /**
+     * 価格（数百円から数十万円まで、安いものほど多い）
+     *
+     * @param id 商品ID
+     * @return 価格
+     */
+    public int price(long id) {
+        double u = uniform(id, 5);
+        return (int) Math.round(Math.pow(10, 2.5 + 3 * u * u) / 10) * 10;
+    }
+
+    /**
+     * 寸法・重量（0.1単位）
+     *
+     * @param id 商品ID
+     * @param salt 項目ごとの値
+     * @param max 最大値
+     * @return 寸法・重量
+     */
+    public double size(long id, int salt, double max) {
+        return Math.round((1 + uniform(id, 10 + salt) * (max - 1)) * 10) / 10.0;
+    }
+
+    /**
+     * 商品のブランドID（Zipf分布。IDが小さいほど多い）
+     *
+     * @param id 商品ID
+     * @return ブランドID
+     */
+    public int brandOf(long id) {
+        double u = uniform(id, 6);
+        int low = 0;
+        int high = brandCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (brandCdf[middle] < u) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+    /**
+     * 商品のカテゴリーID（一様分布）
+     *
+     * @param id 商品ID
+     * @return カテゴリーID
+     */
+    public int categoryOf(long id) {
+        return 1 + (int) (uniform(id, 7) * categoryCount);
+    }
+
+    /**
+     * 商品画像の番号
+     *
+     * @param id 商品ID
+     * @param imageCount 画像の件数
+     * @param ratio 画像のある商品の割合
+     * @return 画像の番号（画像が無い場合は-1）
+     */
+    public int imageOf(long id, int imageCount, double ratio) {
+        if (imageCount == 0 || uniform(id, 8) >= ratio) {
+            return -1;
+        }
+        return (int) (uniform(id, 9) * imageCount);
+    }
+
+    /**
+     * ブランド名（10文字以内で、IDごとに一意）
+     *
+     * @param id ブランドID
+     * @return ブランド名
+     */
+    public String brandName(long id) {
+        // ID-1をカタカナの40進数（3桁以上）で表す
+        StringBuilder name = new StringBuilder();
+        long value = id - 1;
+        for (int digit = 0; digit < 3 || value > 0; digit++) {
+            name.insert(0, SYLLABLES[(int) (value % SYLLABLES.length)]);
+            value /= SYLLABLES.length;
+        }
+        return name.append(pick(BRAND_SUFFIXES, id, 20)).toString();
+    }
+
+    /**
+     * カテゴリー名（IDごとに一意）
+     *
+     * @param id カテゴリーID
+     * @return カテゴリー名
+     */
+    public String categoryName(long id) {
+        int index = (int) ((id - 1) % CATEGORY_NAMES.length);
+        long round = (id - 1) / CATEGORY_NAMES.length;
+        return CATEGORY_NAMES[index] + (round == 0 ? "" : String.valueOf(round + 1));
+    }
+
+    /**
+     * 管理者のメールアドレス
+     *
+     * @param id 管理者ID
+     * @return メールアドレス
+     */
+    public String email(long id) {
+        return "user" + id + "@example.com";
+    }
+
+    /**
+     * 管理者の名前
+     *
+     * @param id 管理者ID
+     * @return 名前
+     */
+    public String userName(long id) {
+        return pick(FAMILY_NAMES, id, 30) + pick(GIVEN_NAMES, id, 31);
+    }
+
+    /**
+     * 管理者の検索用の名前
+     *
+     * @param id 管理者ID
+     * @return 検索用の名前
+     */
+    public String userNameNormalized(long id) {
+        return User.normalizeName(userName(id));
+    }
+
+    /**
+     * 管理者のロールID（1人目は全てのロール、以降は1割が管理者）
+     *
+     * @param id 管理者ID
+     * @return ロールID
+     */
+    public int[] rolesOf(long id) {
+        if (id == 1) {
+            return new int[] { 1, 2 };
+        }
+        return uniform(id, 32) < 0.1 ? new int[] { 1 } : new int[] { 2 };
+    }
+
+    /**
+     * 商品画像の乱数（画像の番号ごとに一定）
+     *
+     * @param index 画像の番号
+     * @param salt 用途ごとの値
+     * @return 0以上1未満の値
+     */
+    public double imageUniform(int index, int salt) {
+        return uniform(index, 100 + salt);
+    }
+
+    private String pick(String[] values, long id, int salt) {
+        return values[(int) (uniform(id, salt) * values.length)];
+    }
+
+    /**
+     * シード・ID・用途から求める0以上1未満の値
+     */
+    private double uniform(long id, int salt) {
+        return (mix(seed ^ mix(id * 0x9E3779B97F4A7C15L + salt)) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * SplitMix64のハッシュ関数
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() > length ? value.substring(0, length) : value;
+    }
+
+}
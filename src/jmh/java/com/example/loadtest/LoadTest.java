@@ -0,0 +1,297 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.benchmark.BenchmarkApplication;
+import com.example.datagen.SyntheticCatalog;
+import com.example.loadtest.LoadTestSession.Response;
+
+/**
+ * MVCの画面に対する負荷試験
+ *
+ * 組み込みDB（H2）でアプリケーションを起動し、ログイン済みの管理者として一覧・検索・詳細・登録の各画面にリクエストを送信する。
+ * リクエストは応答を待たずに一定の到着率（ポアソン到着）で送信し（オープンモデル）、
+ * 応答時間は予定した送信時刻から計測する（送信の遅れ・待ち行列の時間を含め、coordinated omissionを補正する）。
+ *
+ * 設定はシステムプロパティ（loadtest.*）で指定する。結果は画面別のp50/p99/p999・スループットを出力し、
+ * 画面別のHDRヒストグラム（.hgrm）をloadtest.report-dirに書き出す。
+ */
+public final class LoadTest {
+
+    /** 記録する応答時間の上限（ナノ秒） */
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(10);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "100"));
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+        int catalogSize = Integer.getInteger("loadtest.catalog-size", 10000);
+        int sessionCount = Math.min(BenchmarkApplication.USER_COUNT, Integer.getInteger("loadtest.sessions", 20));
+        int threads = Integer.getInteger("loadtest.threads", 200);
+        long seed = Long.getLong("loadtest.seed", 1L);
+        Path reportDir = Paths.get(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+        // 同時接続数分の接続を使い回す
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("slshop.login-throttle.ip.capacity", String.valueOf(sessionCount * 2));
+        properties.put("slshop.password.bcrypt-cost", "10");
+        properties.put("logging.level.root", "warn");
+        ConfigurableApplicationContext context = BenchmarkApplication.start(catalogSize, properties);
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            LoadTestSession[] sessions = new LoadTestSession[sessionCount];
+            for (int i = 0; i < sessionCount; i++) {
+                sessions[i] = new LoadTestSession(baseUrl);
+                sessions[i].login(BenchmarkApplication.email(i + 1), BenchmarkApplication.PASSWORD);
+            }
+            List<Endpoint> endpoints = endpoints(catalogSize);
+            run(endpoints, sessions, rate, warmupSeconds, durationSeconds, threads, new Random(seed));
+            report(endpoints, rate, durationSeconds, reportDir);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * 画面と送信の割合（一覧・検索・詳細を中心に、登録を少し含める）
+     */
+    private static List<Endpoint> endpoints(int catalogSize) {
+        SyntheticCatalog catalog = BenchmarkApplication.catalog(catalogSize);
+        int brandCount = catalog.getBrandCount();
+        int categoryCount = catalog.getCategoryCount();
+        int userCount = BenchmarkApplication.USER_COUNT;
+        // 登録する名前の連番（送信する内容は予定を立てるスレッドで作る）
+        int[] next = { 0 };
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(new Endpoint("GET /products", 20, random -> session -> session.get("/products")));
+        endpoints.add(new Endpoint("GET /products?keyword", 15, random -> {
+            String keyword = catalog.productName(1 + random.nextInt(catalogSize));
+            return session -> session.get("/products?keyword=" + LoadTestSession.encode(keyword));
+        }));
+        endpoints.add(new Endpoint("GET /products/detail/{id}", 20, random -> {
+            int id = 1 + random.nextInt(catalogSize);
+            return session -> session.get("/products/detail/" + id);
+        }));
+        endpoints.add(new Endpoint("POST /products/save", 2, random -> {
+            String form = "name=" + LoadTestSession.encode("L" + next[0]++)
+                    + "&description=" + LoadTestSession.encode("負荷試験の商品")
+                    + "&brand=" + (1 + random.nextInt(brandCount))
+                    + "&category=" + (1 + random.nextInt(categoryCount))
+                    + "&length=10&width=10&height=10&weight=100";
+            return session -> session.post("/products/save", form);
+        }));
+
+        endpoints.add(new Endpoint("GET /brands", 5, random -> session -> session.get("/brands")));
+        endpoints.add(new Endpoint("GET /brands?keyword", 3, random -> {
+            String keyword = catalog.brandName(1 + random.nextInt(brandCount));
+            return session -> session.get("/brands?keyword=" + LoadTestSession.encode(keyword));
+        }));
+        endpoints.add(new Endpoint("GET /brands/detail/{id}", 5, random -> {
+            int id = 1 + random.nextInt(brandCount);
+            return session -> session.get("/brands/detail/" + id);
+        }));
+        endpoints.add(new Endpoint("POST /brands/save", 1, random -> {
+            String form = "name=" + LoadTestSession.encode("LB" + next[0]++);
+            return session -> session.post("/brands/save", form);
+        }));
+
+        endpoints.add(new Endpoint("GET /categories", 5, random -> session -> session.get("/categories")));
+        endpoints.add(new Endpoint("GET /categories?keyword", 3, random -> {
+            String keyword = catalog.categoryName(1 + random.nextInt(categoryCount));
+            return session -> session.get("/categories?keyword=" + LoadTestSession.encode(keyword));
+        }));
+        endpoints.add(new Endpoint("GET /categories/detail/{id}", 5, random -> {
+            int id = 1 + random.nextInt(categoryCount);
+            return session -> session.get("/categories/detail/" + id);
+        }));
+        endpoints.add(new Endpoint("POST /categories/save", 1, random -> {
+            String form = "name=" + LoadTestSession.encode("LC" + next[0]++);
+            return session -> session.post("/categories/save", form);
+        }));
+
+        endpoints.add(new Endpoint("GET /users", 4, random -> session -> session.get("/users")));
+        endpoints.add(new Endpoint("GET /users?keyword", 3, random -> {
+            String keyword = catalog.userName(1 + random.nextInt(userCount));
+            return session -> session.get("/users?keyword=" + LoadTestSession.encode(keyword));
+        }));
+        endpoints.add(new Endpoint("GET /users/detail/{id}", 4, random -> {
+            int id = 1 + random.nextInt(userCount);
+            return session -> session.get("/users/detail/" + id);
+        }));
+        endpoints.add(new Endpoint("POST /users/save", 1, random -> {
+            int id = next[0]++;
+            String form = "email=" + LoadTestSession.encode("load" + id + "@example.com")
+                    + "&name=" + LoadTestSession.encode("負荷" + id)
+                    + "&password=" + LoadTestSession.encode(BenchmarkApplication.PASSWORD)
+                    + "&roles=1";
+            return session -> session.post("/users/save", form);
+        }));
+        return endpoints;
+    }
+
+    /**
+     * 予定した送信時刻にリクエストを送信する（応答は待たない）
+     */
+    private static void run(List<Endpoint> endpoints, LoadTestSession[] sessions, double rate,
+            int warmupSeconds, int durationSeconds, int threads, Random random) throws InterruptedException {
+        int totalWeight = endpoints.stream().mapToInt(endpoint -> endpoint.weight).sum();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long intended = start;
+        while (intended < end) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            Endpoint endpoint = pick(endpoints, totalWeight, random);
+            Request request = endpoint.prepare.apply(random);
+            LoadTestSession session = sessions[random.nextInt(sessions.length)];
+            long scheduled = intended;
+            // ウォームアップ中のリクエストは記録しない
+            boolean measured = scheduled >= measureStart;
+            executor.execute(() -> endpoint.send(request, session, scheduled, measured));
+            // ポアソン到着（指数分布の間隔）
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int totalWeight, Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            value -= endpoint.weight;
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * 画面別の結果を出力する
+     */
+    private static void report(List<Endpoint> endpoints, double rate, int durationSeconds, Path reportDir)
+            throws IOException {
+        Files.createDirectories(reportDir);
+        Histogram total = new Histogram(MAX_LATENCY, 3);
+        long totalErrors = 0;
+        PrintStream out = System.out;
+        out.printf("%nintended rate: %.1f req/s, duration: %d s%n", rate, durationSeconds);
+        out.printf("%-30s %8s %6s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        for (Endpoint endpoint : endpoints) {
+            print(out, endpoint.name, endpoint.histogram, endpoint.errors.get(), durationSeconds);
+            total.add(endpoint.histogram);
+            totalErrors += endpoint.errors.get();
+            write(reportDir.resolve(endpoint.name.replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm"), endpoint.histogram);
+        }
+        print(out, "total", total, totalErrors, durationSeconds);
+        write(reportDir.resolve("total.hgrm"), total);
+        out.println("histograms: " + reportDir.toAbsolutePath());
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram, long errors, int durationSeconds) {
+        out.printf("%-30s %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+                (double) histogram.getTotalCount() / durationSeconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            // ミリ秒単位で出力する
+            histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * 送信するリクエスト
+     */
+    @FunctionalInterface
+    private interface Request {
+
+        Response send(LoadTestSession session) throws IOException;
+    }
+
+    /**
+     * 負荷をかける画面と、その応答時間の記録
+     */
+    private static final class Endpoint {
+
+        private final String name;
+
+        /** 送信の割合 */
+        private final int weight;
+
+        /** 送信するリクエストを作る（送信時刻の予定と同じスレッドで、乱数から決める） */
+        private final Function<Random, Request> prepare;
+
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY, 3);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private Endpoint(String name, int weight, Function<Random, Request> prepare) {
+            this.name = name;
+            this.weight = weight;
+            this.prepare = prepare;
+        }
+
+        /**
+         * リクエストを送信し、予定した送信時刻からの応答時間を記録する
+         */
+        private void send(Request request, LoadTestSession session, long scheduled, boolean measured) {
+            boolean success;
+            try {
+                success = request.send(session).isSuccess();
+            } catch (IOException e) {
+                success = false;
+            }
+            if (!measured) {
+                return;
+            }
+            histogram.recordValue(Math.min(MAX_LATENCY, System.nanoTime() - scheduled));
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+}
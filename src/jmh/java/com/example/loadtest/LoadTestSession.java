@@ -0,0 +1,188 @@
+package com.example.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ログイン済みの管理者のセッション
+ *
+ * セッションIDのCookieとCSRFトークンを保持し、HttpURLConnection（Keep-Alive）でリクエストを送信する
+ */
+public class LoadTestSession {
+
+    /** フォームに埋め込まれたCSRFトークン */
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    private static final Pattern SESSION_ID = Pattern.compile("JSESSIONID=([^;]+)");
+
+    private final String baseUrl;
+
+    private String sessionId;
+
+    private String csrfToken;
+
+    public LoadTestSession(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * ログインする（ログイン後のCSRFトークンを登録画面から取得する）
+     *
+     * @param email メールアドレス
+     * @param password パスワード
+     * @throws IOException ログインできない場合
+     */
+    public void login(String email, String password) throws IOException {
+        Response form = get("/loginForm");
+        csrfToken = findCsrfToken(form.body);
+        Response login = post("/login", "email=" + encode(email) + "&password=" + encode(password));
+        String location = login.location;
+        if (login.status != HttpURLConnection.HTTP_MOVED_TEMP || location == null || location.contains("error")) {
+            throw new IOException("Login failed: " + email + " (" + login.status + " " + location + ")");
+        }
+        // ログイン時にCSRFトークンは作り直される
+        csrfToken = findCsrfToken(get("/products/new").body);
+    }
+
+    /**
+     * GETリクエストを送信する
+     *
+     * @param path パス（クエリ文字列を含む）
+     * @return 応答
+     * @throws IOException
+     */
+    public Response get(String path) throws IOException {
+        return send("GET", path, null);
+    }
+
+    /**
+     * フォームをPOSTする（CSRFトークンを付与する）
+     *
+     * @param path パス
+     * @param form URLエンコード済みのフォームの内容
+     * @return 応答
+     * @throws IOException
+     */
+    public Response post(String path, String form) throws IOException {
+        return send("POST", path, form + "&_csrf=" + encode(csrfToken));
+    }
+
+    private Response send(String method, String path, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        if (sessionId != null) {
+            connection.setRequestProperty("Cookie", "JSESSIONID=" + sessionId);
+        }
+        if (form != null) {
+            byte[] body = form.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        updateSessionId(connection.getHeaderFields().get("Set-Cookie"));
+        // 接続を再利用できるよう、本文は最後まで読み込む
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        String body = "";
+        if (in != null) {
+            try (InputStream stream = in) {
+                body = read(stream);
+            }
+        }
+        return new Response(status, connection.getHeaderField("Location"), body);
+    }
+
+    private void updateSessionId(List<String> cookies) {
+        if (cookies == null) {
+            return;
+        }
+        for (String cookie : cookies) {
+            Matcher matcher = SESSION_ID.matcher(cookie);
+            if (matcher.find()) {
+                sessionId = matcher.group(1);
+            }
+        }
+    }
+
+    private static String findCsrfToken(String html) throws IOException {
+        Matcher matcher = CSRF.matcher(html);
+        if (!matcher.find()) {
+            throw new IOException("CSRF token not found");
+        }
+        return matcher.group(1);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * URLエンコードする
+     *
+     * @param value 値
+     * @return エンコードした値
+     */
+    public static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 応答
+     */
+    public static final class Response {
+
+        private final int status;
+
+        private final String location;
+
+        private final String body;
+
+        private Response(int status, String location, String body) {
+            this.status = status;
+            this.location = location;
+            this.body = body;
+        }
+
+        /**
+         * 成功したかどうか（ログイン画面・エラー画面への転送は失敗とする）
+         *
+         * @return true:成功 false:失敗
+         */
+        public boolean isSuccess() {
+            if (status == HttpURLConnection.HTTP_OK) {
+                return true;
+            }
+            return status == HttpURLConnection.HTTP_MOVED_TEMP && location != null
+                    && !location.contains("/loginForm") && !location.contains("/new");
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+}
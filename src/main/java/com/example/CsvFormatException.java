@@ -0,0 +1,24 @@
+package com.example;
+
+import java.io.IOException;
+
+/**
+ * CSVの形式に誤りがある場合の例外
+ */
+public class CsvFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 誤りのあるレコードの先頭の行番号 */
+    private final int lineNumber;
+
+    public CsvFormatException(String message, int lineNumber) {
+        super(message + " at line " + lineNumber);
+        this.lineNumber = lineNumber;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+}
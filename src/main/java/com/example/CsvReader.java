@@ -0,0 +1,110 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV読み込み用のクラス
+ *
+ * 1レコードずつ読み込むため、ファイルサイズに関わらずメモリ使用量は一定となる。
+ * 引用符で囲まれた値（区切り文字・改行・二重引用符を含む値）に対応する。
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader reader;
+
+    /** 読み込み済みのレコードの末尾の行番号 */
+    private int lineNumber;
+
+    /** 先読みした1文字（無い場合は-2） */
+    private int pushedBack = -2;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 1レコードを読み込む
+     *
+     * @return 値のリスト（ファイルの終端の場合はnull）
+     * @throws CsvFormatException 引用符が閉じられないままファイルの終端に達した場合
+     * @throws IOException
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        lineNumber++;
+        int firstLine = lineNumber;
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new CsvFormatException("Unclosed quote", firstLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pushedBack = next;
+                    }
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 読み込み済みのレコードの末尾の行番号
+     *
+     * @return 行番号（1始まり）
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
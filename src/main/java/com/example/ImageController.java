@@ -0,0 +1,274 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.example.entity.ProductImagePaths;
+import com.example.entity.ProductImageVariant;
+import com.example.product.ProductImageStore;
+
+/**
+ * 商品画像・ユーザー画像の配信
+ *
+ * ファイルの内容をヒープに読み込まず、Tomcatのsendfile（使えない場合はFileChannel.transferTo）で送信する。
+ * ETag・Last-Modifiedによる304応答、Rangeによる部分取得に対応する。
+ * 商品画像の縮小版が無い場合（作成前・作成対象外の形式やサイズの画像）は、元画像を配信する。
+ */
+@Controller
+public class ImageController {
+
+    /** 配信するディレクトリ */
+    static final String[] IMAGE_DIRS = { ProductImagePaths.IMAGE_DIR, "user-photos" };
+
+    /** 内容のハッシュ値をファイル名として保存した（内容が変わらない）商品画像のキャッシュ期間 */
+    static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+
+    /** それ以外のファイルのキャッシュ期間（期間経過後はETagで再検証する） */
+    static final String CACHE_REVALIDATE = "private, max-age=3600";
+
+    /** 単一範囲のRangeヘッダー */
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    /** Tomcatのsendfileの利用可否を表すリクエスト属性 */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final Path rootDir;
+
+    private final ServletContext servletContext;
+
+    @Autowired
+    public ImageController(@Value("${slshop.image.root-dir:.}") String rootDir, ServletContext servletContext) {
+        this.rootDir = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.servletContext = servletContext;
+    }
+
+    /**
+     * 画像の配信
+     *
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    @RequestMapping(value = { "/product-images/**", "/user-photos/**" },
+            method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void serveImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        Path file = resolve(path);
+        // 縮小版の代わりに配信する元画像は、縮小版の作成後に切り替わるようキャッシュさせない
+        boolean fallback = false;
+        if (file == null) {
+            file = resolveOriginal(path);
+            fallback = true;
+        }
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // サイズと更新日時から作成する（内容を読まずに求められ、更新されると必ず変わる）
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                !fallback && isBlob(file) ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // 条件付きリクエスト（If-None-Matchを優先する）
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = servletContext.getMimeType(file.getFileName().toString());
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+
+        // 部分取得（If-Rangeが一致しない場合は全体を返却する）
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        // Tomcatのsendfileを利用できる場合は、カーネル内でファイルからソケットへ直接送信させる
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+
+    /**
+     * リクエストのパスを配信対象のファイルに変換する
+     *
+     * @param path リクエストのパス（デコード済み）
+     * @return ファイル（配信対象のディレクトリ外・存在しない場合はnull）
+     */
+    private Path resolve(String path) {
+        Path file = rootDir.resolve(path.replaceFirst("^/+", "")).normalize();
+        for (String dir : IMAGE_DIRS) {
+            if (file.startsWith(rootDir.resolve(dir)) && Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 縮小版のパスを元画像のファイルに変換する
+     *
+     * @param path リクエストのパス（デコード済み）
+     * @return 元画像のファイル（商品画像の縮小版のパスでない・元画像が存在しない場合はnull）
+     */
+    private Path resolveOriginal(String path) {
+        String baseName = ProductImageVariant.originalBaseName(path);
+        if (baseName == null || !path.startsWith("/" + ProductImagePaths.IMAGE_DIR + "/")) {
+            return null;
+        }
+        for (String extension : ProductImageStore.EXTENSIONS) {
+            Path original = resolve(baseName + "." + extension);
+            if (original != null) {
+                return original;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 内容のハッシュ値をファイル名として保存した商品画像かどうか
+     *
+     * ファイル名がハッシュ値の形式で、かつ保存先（product-images/blobs/ab/cd/）に置かれている場合のみ対象とする
+     *
+     * @param file 配信するファイル
+     * @return true:内容が変わらない画像 false:それ以外
+     */
+    private boolean isBlob(Path file) {
+        String fileName = file.getFileName().toString();
+        String blobDir = ProductImagePaths.blobDir(fileName);
+        return blobDir != null && file.equals(rootDir.resolve(ProductImagePaths.IMAGE_DIR).resolve(blobDir + fileName));
+    }
+
+    /**
+     * キャッシュ済みの内容から変更されていないかどうか
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTPの日時は秒単位のため、ミリ秒を切り捨てて比較する
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Rangeヘッダーを解析する（複数範囲の指定は無視して全体を返却する）
+     *
+     * @param range Rangeヘッダー
+     * @param length ファイルサイズ
+     * @return 開始位置と終了位置（全体を返却する場合は空の配列、範囲外の場合はnull）
+     */
+    static long[] parseRange(String range, long length) {
+        Matcher matcher = RANGE.matcher(range.trim());
+        if (!matcher.matches()) {
+            return new long[0];
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // 末尾からのバイト数の指定
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (!last.isEmpty() && Long.parseLong(last) < start) {
+                    // 不正な指定のため無視する
+                    return new long[0];
+                }
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+}
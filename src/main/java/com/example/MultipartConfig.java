@@ -0,0 +1,45 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * マルチパートの設定
+ *
+ * 商品画像のアップロード（/products/images）と商品情報の一括登録（/products/import）は本文を読み込みながら処理するため、
+ * コンテナによる展開の対象外とし、サイズの上限もそれぞれの処理で判定する。
+ * これらのリクエストではリクエストパラメーターを参照できないため、CSRFトークンはヘッダー（X-CSRF-TOKEN）で送信する。
+ */
+@Configuration
+public class MultipartConfig {
+
+    /** 本文を読み込みながら処理するパス */
+    static final Set<String> STREAMING_UPLOAD_PATHS =
+            new HashSet<>(Arrays.asList("/products/images", "/products/import"));
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                if (STREAMING_UPLOAD_PATHS.contains(URL_PATH_HELPER.getPathWithinApplication(request))) {
+                    return false;
+                }
+                return super.isMultipart(request);
+            }
+        };
+    }
+
+}
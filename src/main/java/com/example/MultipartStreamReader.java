@@ -0,0 +1,296 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * マルチパート（multipart/form-data）読み込み用のクラス
+ *
+ * リクエストの本文を固定サイズのバッファで読み進めながらパートを取り出すため、
+ * コンテナによる一時ファイル・メモリへの展開を行わず、ファイルサイズに関わらずメモリ使用量は一定となる。
+ */
+public class MultipartStreamReader {
+
+    /** 読み込みバッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** パートのヘッダーの最大サイズ */
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=(?:\"([^\"]+)\"|([^;\\s]+))");
+
+    private static final Pattern NAME = Pattern.compile("[;\\s]name=\"([^\"]*)\"");
+
+    private static final Pattern FILENAME = Pattern.compile("filename=\"([^\"]*)\"");
+
+    private final InputStream in;
+
+    /** 本文の最大サイズ */
+    private final long maxBytes;
+
+    /** パートの区切り（CRLF + "--" + boundary） */
+    private final byte[] delimiter;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    /** 読み込み済みのサイズ */
+    private long total;
+
+    /** 読み込み中のパート */
+    private Part current;
+
+    /** 終端の区切りまで読み込んだかどうか */
+    private boolean finished;
+
+    public MultipartStreamReader(InputStream in, String boundary, long maxBytes) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // 先頭の区切りの前にはCRLFが無いため、補って同じ区切りで扱う
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Content-Typeからboundaryを取得する
+     *
+     * @param contentType Content-Type
+     * @return boundary（multipart/form-dataでない場合はnull）
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * 次のパートを取得する（読み込み中のパートの残りは読み飛ばす）
+     *
+     * @return パート（終端の場合はnull）
+     * @throws IOException
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current == null) {
+            // 先頭の区切りまでを読み飛ばす
+            skipToDelimiter();
+        } else {
+            // 読み込み中のパートの残りを読み飛ばす
+            byte[] skip = new byte[4096];
+            while (current.body.read(skip, 0, skip.length) != -1) {
+                // 読み飛ばす
+            }
+        }
+
+        // 区切りの直後が"--"の場合は終端
+        ensure(2);
+        if (limit - pos >= 2 && buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        String headers = readHeaders();
+        current = new Part(headers, new PartInputStream());
+        return current;
+    }
+
+    /**
+     * 区切りの直後まで読み飛ばす
+     */
+    private void skipToDelimiter() throws IOException {
+        while (true) {
+            ensure(delimiter.length);
+            int index = indexOf(delimiter, pos, limit);
+            if (index >= 0) {
+                pos = index + delimiter.length;
+                return;
+            }
+            if (eof) {
+                throw new IOException("Multipart boundary not found");
+            }
+            pos = Math.max(pos, limit - delimiter.length + 1);
+        }
+    }
+
+    /**
+     * パートのヘッダーを読み込む（空行まで）
+     */
+    private String readHeaders() throws IOException {
+        byte[] end = { '\r', '\n', '\r', '\n' };
+        // 区切りの行末（CRLF）からヘッダーの終わり（空行）までを探す
+        while (true) {
+            ensure(Math.min(MAX_HEADER_SIZE, BUFFER_SIZE / 2));
+            int index = indexOf(end, pos, limit);
+            if (index >= 0) {
+                String headers = new String(buffer, pos, index - pos, StandardCharsets.UTF_8);
+                pos = index + end.length;
+                return headers;
+            }
+            if (eof || limit - pos >= MAX_HEADER_SIZE) {
+                throw new IOException("Malformed multipart headers");
+            }
+        }
+    }
+
+    /**
+     * バッファに指定バイト数以上が残るよう読み込む（終端の場合はそれ未満）
+     */
+    private void ensure(int bytes) throws IOException {
+        if (limit - pos >= bytes || eof) {
+            return;
+        }
+        // 未読み込みの部分をバッファの先頭に詰める
+        System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < bytes && !eof) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                eof = true;
+            } else {
+                total += read;
+                if (total > maxBytes) {
+                    throw new UploadSizeExceededException(maxBytes);
+                }
+                limit += read;
+            }
+        }
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        byte first = pattern[0];
+        for (int i = from; i <= to - pattern.length; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < pattern.length && buffer[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * パートの本文（次の区切りの直前まで）
+     */
+    private final class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            ensure(delimiter.length + 1);
+            int index = indexOf(delimiter, pos, limit);
+            int available;
+            if (index >= 0) {
+                available = index - pos;
+                if (available == 0) {
+                    pos = index + delimiter.length;
+                    done = true;
+                    return -1;
+                }
+            } else {
+                if (eof) {
+                    throw new IOException("Unexpected end of multipart body");
+                }
+                // 区切りの先頭の可能性がある末尾は残す
+                available = limit - pos - (delimiter.length - 1);
+            }
+            int count = Math.min(len, available);
+            System.arraycopy(buffer, pos, b, off, count);
+            pos += count;
+            return count;
+        }
+    }
+
+    /**
+     * マルチパートの1パート
+     */
+    public static final class Part {
+
+        private final String name;
+
+        private final String fileName;
+
+        private final InputStream body;
+
+        private Part(String headers, InputStream body) {
+            String name = null;
+            String fileName = null;
+            for (String header : headers.split("\r\n")) {
+                if (header.toLowerCase(Locale.ROOT).startsWith("content-disposition:")) {
+                    Matcher nameMatcher = NAME.matcher(header);
+                    if (nameMatcher.find()) {
+                        name = nameMatcher.group(1);
+                    }
+                    Matcher fileNameMatcher = FILENAME.matcher(header);
+                    if (fileNameMatcher.find()) {
+                        fileName = fileNameMatcher.group(1);
+                    }
+                }
+            }
+            this.name = name;
+            this.fileName = fileName;
+            this.body = body;
+        }
+
+        /**
+         * フォームの項目名
+         *
+         * @return 項目名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * ファイル名
+         *
+         * @return ファイル名（ファイル以外の場合はnull）
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * 本文（リクエストから直接読み込む。1回のみ読み込める）
+         *
+         * @return 本文
+         */
+        public InputStream getInputStream() {
+            return body;
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.example;
+
+import java.io.IOException;
+
+/**
+ * アップロードされたファイルが保存できる形式の画像でない場合の例外
+ */
+public class UnsupportedImageException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedImageException(String fileName) {
+        super("Unsupported image: " + fileName);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.example;
+
+import java.io.IOException;
+
+/**
+ * アップロードされたファイル・リクエストが上限サイズを超えた場合の例外
+ */
+public class UploadSizeExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 上限サイズ（バイト） */
+    private final long maxBytes;
+
+    public UploadSizeExceededException(long maxBytes) {
+        super("Upload size exceeds " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+}
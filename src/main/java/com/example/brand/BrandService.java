@@ -1,21 +1,40 @@
 package com.example.brand;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.example.cache.ReferenceData;
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.Brand;
+import com.example.entity.Product;
+import com.example.product.ProductSearchIndex;
 
 @Service
 public class BrandService {
 
     private final BrandRepository brandRepository;
 
+    private final ProductSearchIndex productSearchIndex;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityCache entityCache;
+
+    private final ReferenceData referenceData;
+
     @Autowired
-    public BrandService(BrandRepository brandRepository) {
+    public BrandService(BrandRepository brandRepository, ProductSearchIndex productSearchIndex,
+            SearchResultCache searchResultCache, EntityCache entityCache, ReferenceData referenceData) {
         this.brandRepository = brandRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.searchResultCache = searchResultCache;
+        this.entityCache = entityCache;
+        this.referenceData = referenceData;
     }
 
     /**
@@ -34,9 +53,10 @@ public class BrandService {
      * @return ブランド情報のリスト
      */
     public List<Brand> listAll(String keyword) {
+        String normalized = SearchResultCache.normalize(keyword);
         // 検索キーワードがあった場合
-        if (keyword != null && !keyword.isEmpty()) {
-            return brandRepository.search(keyword);
+        if (normalized != null && !normalized.isEmpty()) {
+            return searchResultCache.get(Brand.class, normalized, () -> brandRepository.search(normalized));
         }
         // それ以外の場合
         else {
@@ -52,11 +72,8 @@ public class BrandService {
      * @throws NotFoundException 
      */
     public Brand get(Long id) throws NotFoundException {
-        // IDに紐づくブランド情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
-        return brandRepository.findById(id).get();
+        // IDに紐づくブランド情報の取得（キャッシュに無い場合のみDBから取得する）
+        return find(id).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -66,7 +83,18 @@ public class BrandService {
      * @return 保存したブランド情報
      */
     public Brand save(Brand brand) {
-        return brandRepository.save(brand);
+        Brand savedBrand = brandRepository.save(brand);
+        // 商品検索用インデックスのブランド名を更新する
+        productSearchIndex.updateBrand(savedBrand);
+        // ブランド名は商品の検索結果にも含まれるため、両方の検索結果キャッシュを破棄する
+        searchResultCache.invalidate(Brand.class);
+        searchResultCache.invalidate(Product.class);
+        // ブランド情報と、ブランド情報を保持している商品情報のキャッシュを破棄する
+        entityCache.evict(Brand.class, savedBrand.getId());
+        entityCache.evictAll(Product.class);
+        // 入力画面の選択肢を更新する
+        referenceData.reloadBrands();
+        return savedBrand;
     }
 
     /**
@@ -120,6 +148,14 @@ public class BrandService {
             throw new NotFoundException();
         }
         brandRepository.deleteById(id);
+        // 検索結果キャッシュを破棄する
+        searchResultCache.invalidate(Brand.class);
+        searchResultCache.invalidate(Product.class);
+        // ブランド情報と、ブランド情報を保持している商品情報のキャッシュを破棄する
+        entityCache.evict(Brand.class, id);
+        entityCache.evictAll(Product.class);
+        // 入力画面の選択肢を更新する
+        referenceData.reloadBrands();
     }
 
     /**
@@ -129,11 +165,17 @@ public class BrandService {
      * @return true:存在する false:存在しない
      */
     private boolean exists(Long id) {
-        Long countById = brandRepository.countById(id);
-        if (countById == null || countById == 0L) {
-            return false;
-        }
-        return true;
+        return find(id).isPresent();
+    }
+
+    /**
+     * IDに紐づくブランド情報の取得（存在しないことも含めてキャッシュする）
+     *
+     * @param id ブランドID
+     * @return ブランド情報（存在しない場合は空）
+     */
+    private Optional<Brand> find(Long id) {
+        return entityCache.get(Brand.class, id, brandRepository::findById);
     }
     
 }
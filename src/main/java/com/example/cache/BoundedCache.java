@@ -0,0 +1,179 @@
+package com.example.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 件数上限（LRU）と有効期限付きのキャッシュ
+ *
+ * 値の読み込みは呼び出し元で行う。読み込み前に取得した更新世代を保存時に渡すことで、
+ * 読み込み中に破棄（更新）された場合は古い値を保存しない。更新世代は破棄の単位（グループ）毎に管理する。
+ *
+ * @param <K> キー
+ * @param <V> 値
+ */
+public class BoundedCache<K, V> {
+
+    /** 保持する値の上限件数 */
+    private final int maxEntries;
+
+    /** 有効期限（ナノ秒。0以下の場合は期限なし） */
+    private final long ttlNanos;
+
+    /** 値（アクセス順） */
+    private final Map<K, CachedValue<V>> entries;
+
+    /** グループ毎の更新世代 */
+    private final Map<Object, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries 保持する値の上限件数
+     * @param ttlSeconds 有効期限（秒。0以下の場合は期限なし）
+     */
+    public BoundedCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > BoundedCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * キーに紐づく値を取得する
+     *
+     * @param key キー
+     * @return 値（保持していない・有効期限切れの場合はnull）
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            CachedValue<V> cached = entries.get(key);
+            if (cached != null) {
+                if (ttlNanos <= 0 || System.nanoTime() - cached.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return cached.value;
+                }
+                // 有効期限切れ
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * グループの現在の更新世代を取得する（値の読み込み前に呼び出す）
+     *
+     * @param group 破棄の単位
+     * @return 更新世代
+     */
+    public long generation(Object group) {
+        return generationOf(group).get();
+    }
+
+    /**
+     * 値を保存する（読み込み中にグループが破棄された場合は保存しない）
+     *
+     * @param key キー
+     * @param value 値
+     * @param group 破棄の単位
+     * @param generation 読み込み前に取得した更新世代
+     */
+    public void put(K key, V value, Object group, long generation) {
+        synchronized (entries) {
+            if (generation == generationOf(group).get()) {
+                entries.put(key, new CachedValue<>(value, System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * キーに紐づく値を破棄する
+     *
+     * @param group 破棄の単位（読み込み中の値を保存させない）
+     * @param key キー
+     */
+    public void evict(Object group, K key) {
+        generationOf(group).incrementAndGet();
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 条件に一致するキーの値を破棄する
+     *
+     * @param group 破棄の単位（読み込み中の値を保存させない）
+     * @param keys 破棄するキーの条件
+     */
+    public void evictIf(Object group, Predicate<? super K> keys) {
+        generationOf(group).incrementAndGet();
+        synchronized (entries) {
+            Iterator<K> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (keys.test(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * キャッシュの統計情報を取得する
+     *
+     * @return 件数・上限件数・有効期限（期限付きの場合のみ）・ヒット数・ミス数・追い出し数
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", (long) entries.size());
+        }
+        stats.put("maxEntries", (long) maxEntries);
+        if (ttlNanos > 0) {
+            stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private AtomicLong generationOf(Object group) {
+        return generations.computeIfAbsent(group, k -> new AtomicLong());
+    }
+
+    /**
+     * キャッシュした値と取得時刻
+     */
+    private static final class CachedValue<V> {
+
+        private final V value;
+
+        private final long loadedAt;
+
+        private CachedValue(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
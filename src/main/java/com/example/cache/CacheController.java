@@ -0,0 +1,64 @@
+package com.example.cache;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.example.security.UserDetailsCache;
+
+@Controller
+@RequestMapping("/caches")
+public class CacheController {
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityCache entityCache;
+
+    private final UserDetailsCache userDetailsCache;
+
+    @Autowired
+    public CacheController(SearchResultCache searchResultCache, EntityCache entityCache,
+            UserDetailsCache userDetailsCache) {
+        this.searchResultCache = searchResultCache;
+        this.entityCache = entityCache;
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    /**
+     * 検索結果キャッシュの統計情報取得
+     *
+     * @return ヒット数・ミス数・追い出し数などの統計情報（JSON）
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public Map<String, Long> searchCacheStats() {
+        return searchResultCache.stats();
+    }
+
+    /**
+     * エンティティキャッシュの統計情報取得
+     *
+     * @return ヒット数・存在しないIDのヒット数・ミス数などの統計情報（JSON）
+     */
+    @GetMapping("/entity")
+    @ResponseBody
+    public Map<String, Long> entityCacheStats() {
+        return entityCache.stats();
+    }
+
+    /**
+     * 認証用キャッシュの統計情報取得
+     *
+     * @return ヒット数・ミス数・追い出し数などの統計情報（JSON）
+     */
+    @GetMapping("/user-details")
+    @ResponseBody
+    public Map<String, Long> userDetailsCacheStats() {
+        return userDetailsCache.stats();
+    }
+
+}
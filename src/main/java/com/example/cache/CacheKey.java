@@ -0,0 +1,36 @@
+package com.example.cache;
+
+import java.util.Objects;
+
+/**
+ * キャッシュのキー（エンティティの種類と値の組）
+ */
+final class CacheKey {
+
+    final Class<?> type;
+
+    final Object value;
+
+    CacheKey(Class<?> type, Object value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) obj;
+        return type == other.type && Objects.equals(value, other.value);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.example.cache;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * IDに紐づくエンティティのキャッシュ
+ *
+ * エンティティの種類とIDをキーに、件数上限（LRU）と有効期限付きで保持する。
+ * 存在しないIDも「存在しない」ことを保持し、削除済みデータへのアクセスでDBに問い合わせない。
+ */
+@Component
+public class EntityCache {
+
+    /** 存在しないことを表す値 */
+    private static final Object MISSING = new Object();
+
+    /** エンティティ（エンティティの種類毎に破棄する） */
+    private final BoundedCache<CacheKey, Object> entries;
+
+    private final AtomicLong negativeHits = new AtomicLong();
+
+    public EntityCache(@Value("${slshop.entity-cache.max-entries:10000}") int maxEntries,
+            @Value("${slshop.entity-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.entries = new BoundedCache<>(maxEntries, ttlSeconds);
+    }
+
+    /**
+     * IDに紐づくエンティティを取得する（キャッシュに無い場合は取得して保存する）
+     *
+     * @param type エンティティの種類
+     * @param id ID
+     * @param loader 取得処理
+     * @return エンティティ（存在しない場合は空）
+     */
+    public <T> Optional<T> get(Class<T> type, Long id, Function<Long, Optional<T>> loader) {
+        CacheKey key = new CacheKey(type, id);
+        Object cached = entries.get(key);
+        if (cached == MISSING) {
+            negativeHits.incrementAndGet();
+            return Optional.empty();
+        }
+        if (cached != null) {
+            return Optional.of(type.cast(cached));
+        }
+
+        long generation = entries.generation(type);
+        Optional<T> loaded = loader.apply(id);
+        entries.put(key, loaded.isPresent() ? loaded.get() : MISSING, type, generation);
+        return loaded;
+    }
+
+    /**
+     * IDに紐づくエンティティを破棄する
+     *
+     * @param type 更新されたエンティティの種類
+     * @param id 更新されたエンティティのID
+     */
+    public void evict(Class<?> type, Long id) {
+        entries.evict(type, new CacheKey(type, id));
+    }
+
+    /**
+     * エンティティの種類に紐づく全エンティティを破棄する
+     *
+     * @param type 更新されたエンティティの種類
+     */
+    public void evictAll(Class<?> type) {
+        entries.evictIf(type, key -> key.type == type);
+    }
+
+    /**
+     * キャッシュの統計情報を取得する
+     *
+     * @return 統計情報（hitsは存在しないことのヒット（negativeHits）を含む）
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = entries.stats();
+        stats.put("negativeHits", negativeHits.get());
+        return stats;
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Role;
+import com.example.user.RoleRepository;
+
+/**
+ * 入力画面の選択肢（ブランド・カテゴリー・ロール）のスナップショット
+ *
+ * 更新頻度が低いため起動時に読み込み、登録・削除の度に変更のあった一覧だけを読み直して
+ * スナップショットごと置き換える。参照側はDBにアクセスせず、変更不可の一覧を受け取る。
+ */
+@Component
+public class ReferenceData {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceData.class);
+
+    private final BrandRepository brandRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final RoleRepository roleRepository;
+
+    /** 現在のスナップショット（未読み込みの場合はnull） */
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ReferenceData(BrandRepository brandRepository, CategoryRepository categoryRepository,
+            RoleRepository roleRepository) {
+        this.brandRepository = brandRepository;
+        this.categoryRepository = categoryRepository;
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * 起動時に全件を読み込む
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        snapshot = new Snapshot(freeze(brandRepository.findAll()), freeze(categoryRepository.findAll()),
+                freeze(roleRepository.findAll()));
+        LOGGER.info("Reference data loaded: " + snapshot.brands.size() + " brands, "
+                + snapshot.categories.size() + " categories, " + snapshot.roles.size() + " roles");
+    }
+
+    /**
+     * ブランド情報全件取得
+     *
+     * @return ブランド情報のリスト（変更不可）
+     */
+    public List<Brand> getBrands() {
+        return current().brands;
+    }
+
+    /**
+     * カテゴリー情報全件取得
+     *
+     * @return カテゴリー情報のリスト（変更不可）
+     */
+    public List<Category> getCategories() {
+        return current().categories;
+    }
+
+    /**
+     * ロール情報全件取得
+     *
+     * @return ロール情報のリスト（変更不可）
+     */
+    public List<Role> getRoles() {
+        return current().roles;
+    }
+
+    /**
+     * ブランド情報の登録・削除を反映する
+     */
+    public synchronized void reloadBrands() {
+        Snapshot old = current();
+        snapshot = new Snapshot(freeze(brandRepository.findAll()), old.categories, old.roles);
+    }
+
+    /**
+     * カテゴリー情報の登録・削除を反映する
+     */
+    public synchronized void reloadCategories() {
+        Snapshot old = current();
+        snapshot = new Snapshot(old.brands, freeze(categoryRepository.findAll()), old.roles);
+    }
+
+    /**
+     * ロール情報の変更を反映する
+     */
+    public synchronized void reloadRoles() {
+        Snapshot old = current();
+        snapshot = new Snapshot(old.brands, old.categories, freeze(roleRepository.findAll()));
+    }
+
+    /**
+     * 現在のスナップショットを取得する（起動時の読み込み前に呼ばれた場合はその場で読み込む）
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static <T> List<T> freeze(List<T> list) {
+        return Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    /**
+     * ある時点の選択肢一覧
+     */
+    private static final class Snapshot {
+
+        private final List<Brand> brands;
+
+        private final List<Category> categories;
+
+        private final List<Role> roles;
+
+        private Snapshot(List<Brand> brands, List<Category> categories, List<Role> roles) {
+            this.brands = brands;
+            this.categories = categories;
+            this.roles = roles;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 検索結果のキャッシュ
+ *
+ * エンティティの種類と検索キーワード（ページ単位で保持する場合は検索条件を含む）をキーに、
+ * 検索結果を件数上限付き（LRU）で保持する。
+ * 同じキーの検索が同時に実行された場合は、1回の検索結果を共有する。
+ */
+@Component
+public class SearchResultCache {
+
+    /** 検索結果（エンティティの種類毎に破棄する） */
+    private final BoundedCache<CacheKey, List<?>> entries;
+
+    /** 実行中の検索 */
+    private final Map<CacheKey, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SearchResultCache(@Value("${slshop.search-cache.max-entries:1000}") int maxEntries) {
+        this.entries = new BoundedCache<>(maxEntries, 0);
+    }
+
+    /**
+     * 検索キーワードの正規化（前後の空白を除去する）
+     *
+     * @param keyword 検索キーワード
+     * @return 正規化した検索キーワード
+     */
+    public static String normalize(String keyword) {
+        return keyword == null ? null : keyword.trim();
+    }
+
+    /**
+     * 検索結果を取得する（キャッシュに無い場合は検索して保存する）
+     *
+     * @param type 検索対象のエンティティの種類（更新時に破棄する単位）
+     * @param keyword 正規化済みの検索キーワード（検索条件を含む文字列でもよい）
+     * @param loader 検索処理
+     * @return 検索結果（変更不可）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Class<?> type, String keyword, Supplier<List<T>> loader) {
+        CacheKey key = new CacheKey(type, keyword);
+        List<?> cached = entries.get(key);
+        if (cached != null) {
+            return (List<T>) cached;
+        }
+
+        // 同じキーの検索が実行中の場合は、その結果を待つ
+        CompletableFuture<List<?>> created = new CompletableFuture<>();
+        CompletableFuture<List<?>> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return (List<T>) await(running);
+        }
+
+        long generation = entries.generation(type);
+        try {
+            List<T> result = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+            // 検索中に更新が無かった場合のみ保存される
+            entries.put(key, result, type, generation);
+            created.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * エンティティの種類に紐づく検索結果を破棄する
+     *
+     * @param type 更新されたエンティティの種類
+     */
+    public void invalidate(Class<?> type) {
+        entries.evictIf(type, key -> key.type == type);
+        // 更新前に開始した検索には、以降の検索を合流させない
+        inFlight.keySet().removeIf(key -> key.type == type);
+    }
+
+    /**
+     * キャッシュの統計情報を取得する
+     *
+     * @return 統計情報
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = entries.stats();
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+
+    private static List<?> await(CompletableFuture<List<?>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
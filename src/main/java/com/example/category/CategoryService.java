@@ -1,21 +1,40 @@
 package com.example.category;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.example.cache.ReferenceData;
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.product.ProductSearchIndex;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
 
+    private final ProductSearchIndex productSearchIndex;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityCache entityCache;
+
+    private final ReferenceData referenceData;
+
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductSearchIndex productSearchIndex,
+            SearchResultCache searchResultCache, EntityCache entityCache, ReferenceData referenceData) {
         this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.searchResultCache = searchResultCache;
+        this.entityCache = entityCache;
+        this.referenceData = referenceData;
     }
 
     /**
@@ -34,9 +53,10 @@ public class CategoryService {
      * @return カテゴリー情報のリスト
      */
     public List<Category> listAll(String keyword) {
+        String normalized = SearchResultCache.normalize(keyword);
         // 検索キーワードがあった場合
-        if (keyword != null && !keyword.isEmpty()) {
-            return categoryRepository.search(keyword);
+        if (normalized != null && !normalized.isEmpty()) {
+            return searchResultCache.get(Category.class, normalized, () -> categoryRepository.search(normalized));
         }
         // それ以外の場合
         else {
@@ -52,11 +72,8 @@ public class CategoryService {
      * @throws NotFoundException 
      */
     public Category get(Long id) throws NotFoundException {
-        // IDに紐づくカテゴリー情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
-        return categoryRepository.findById(id).get();
+        // IDに紐づくカテゴリー情報の取得（キャッシュに無い場合のみDBから取得する）
+        return find(id).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -66,7 +83,18 @@ public class CategoryService {
      * @return 保存したカテゴリー情報
      */
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        // 商品検索用インデックスのカテゴリー名を更新する
+        productSearchIndex.updateCategory(savedCategory);
+        // カテゴリー名は商品の検索結果にも含まれるため、両方の検索結果キャッシュを破棄する
+        searchResultCache.invalidate(Category.class);
+        searchResultCache.invalidate(Product.class);
+        // カテゴリー情報と、カテゴリー情報を保持している商品情報のキャッシュを破棄する
+        entityCache.evict(Category.class, savedCategory.getId());
+        entityCache.evictAll(Product.class);
+        // 入力画面の選択肢を更新する
+        referenceData.reloadCategories();
+        return savedCategory;
     }
 
     /**
@@ -120,6 +148,14 @@ public class CategoryService {
             throw new NotFoundException();
         }
         categoryRepository.deleteById(id);
+        // 検索結果キャッシュを破棄する
+        searchResultCache.invalidate(Category.class);
+        searchResultCache.invalidate(Product.class);
+        // カテゴリー情報と、カテゴリー情報を保持している商品情報のキャッシュを破棄する
+        entityCache.evict(Category.class, id);
+        entityCache.evictAll(Product.class);
+        // 入力画面の選択肢を更新する
+        referenceData.reloadCategories();
     }
 
     /**
@@ -129,11 +165,17 @@ public class CategoryService {
      * @return true:存在する false:存在しない
      */
     private boolean exists(Long id) {
-        Long countById = categoryRepository.countById(id);
-        if (countById == null || countById == 0L) {
-            return false;
-        }
-        return true;
+        return find(id).isPresent();
+    }
+
+    /**
+     * IDに紐づくカテゴリー情報の取得（存在しないことも含めてキャッシュする）
+     *
+     * @param id カテゴリーID
+     * @return カテゴリー情報（存在しない場合は空）
+     */
+    private Optional<Category> find(Long id) {
+        return entityCache.get(Category.class, id, categoryRepository::findById);
     }
    
 }
@@ -149,11 +149,53 @@ public class Product {
     }
 
     public String getImage() {
-        return "/product-images/" + id + "/" + image;
+        return imageDir() + image;
+    }
+
+    /**
+     * 画像のファイル名（内容のハッシュ値をファイル名とする画像の場合はハッシュ値と拡張子）
+     *
+     * @return 画像のファイル名
+     */
+    public String getImageFileName() {
+        return image;
+    }
+
+    /**
+     * 一覧用のサムネイル画像のURL
+     *
+     * @return サムネイル画像のURL
+     */
+    public String getThumbnailImage() {
+        return variantImage(ProductImageVariant.THUMBNAIL);
+    }
+
+    /**
+     * 詳細画面用の縮小画像のURL
+     *
+     * @return 詳細画面用の縮小画像のURL
+     */
+    public String getDetailImage() {
+        return variantImage(ProductImageVariant.DETAIL);
     }
 
     public void setImage(String image) {
         this.image = image;
     }
 
+    private String variantImage(ProductImageVariant variant) {
+        if (image == null) {
+            return getImage();
+        }
+        return imageDir() + variant.fileName(image);
+    }
+
+    /**
+     * 画像のURLのディレクトリ部分
+     */
+    private String imageDir() {
+        String blobDir = ProductImagePaths.blobDir(image);
+        return "/" + ProductImagePaths.IMAGE_DIR + "/" + (blobDir != null ? blobDir : id + "/");
+    }
+
 }
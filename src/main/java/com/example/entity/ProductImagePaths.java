@@ -0,0 +1,38 @@
+package com.example.entity;
+
+import java.util.regex.Pattern;
+
+/**
+ * 商品画像の保存先のパス（商品情報・画像の保存先・配信で共通）
+ */
+public final class ProductImagePaths {
+
+    /** 商品画像のディレクトリ（画像のディレクトリからの相対パス） */
+    public static final String IMAGE_DIR = "product-images";
+
+    /** 保存先のディレクトリ（商品画像のディレクトリからの相対パス） */
+    public static final String BLOB_DIR = "blobs";
+
+    /** ハッシュ値の文字数 */
+    public static final int HASH_LENGTH = 64;
+
+    /** 内容のハッシュ値をファイル名とする画像のファイル名 */
+    private static final Pattern BLOB_NAME = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]{1,5}$");
+
+    private ProductImagePaths() {
+    }
+
+    /**
+     * 内容のハッシュ値をファイル名とする画像の保存先のディレクトリ
+     *
+     * @param fileName 画像のファイル名
+     * @return 商品画像のディレクトリからの相対パス（末尾に/を含む。対象外のファイル名の場合はnull）
+     */
+    public static String blobDir(String fileName) {
+        if (fileName == null || !BLOB_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        return BLOB_DIR + "/" + fileName.substring(0, 2) + "/" + fileName.substring(2, 4) + "/";
+    }
+
+}
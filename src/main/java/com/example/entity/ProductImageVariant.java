@@ -0,0 +1,71 @@
+package com.example.entity;
+
+/**
+ * 商品画像の縮小版の種類
+ */
+public enum ProductImageVariant {
+
+    /** 一覧用のサムネイル */
+    THUMBNAIL(160, "thumbnail"),
+
+    /** 詳細画面用 */
+    DETAIL(600, "detail");
+
+    /** 長辺の最大サイズ（ピクセル） */
+    private final int maxSize;
+
+    /** ファイル名の接尾辞 */
+    private final String suffix;
+
+    ProductImageVariant(int maxSize, String suffix) {
+        this.maxSize = maxSize;
+        this.suffix = suffix;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * 縮小版のファイル名（元画像のファイル名から拡張子を除き、接尾辞を付ける）
+     *
+     * @param image 元画像のファイル名
+     * @return 縮小版のファイル名
+     */
+    public String fileName(String image) {
+        int dot = image.lastIndexOf('.');
+        String baseName = dot > 0 ? image.substring(0, dot) : image;
+        return baseName + "_" + suffix + ".jpg";
+    }
+
+    /**
+     * 縮小版のファイル名から、元画像のファイル名の拡張子を除いた部分を求める
+     *
+     * @param fileName ファイル名
+     * @return 元画像のファイル名の拡張子を除いた部分（縮小版のファイル名でない場合はnull）
+     */
+    public static String originalBaseName(String fileName) {
+        for (ProductImageVariant variant : values()) {
+            String suffix = "_" + variant.suffix + ".jpg";
+            if (fileName.endsWith(suffix)) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ファイル名が縮小版のものかどうか
+     *
+     * @param fileName ファイル名
+     * @return true:縮小版 false:元画像
+     */
+    public static boolean isVariant(String fileName) {
+        return originalBaseName(fileName) != null;
+    }
+
+}
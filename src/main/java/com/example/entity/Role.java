@@ -15,6 +15,9 @@ import javax.persistence.Table;
 @Table(name = "ROLES")
 public class Role {
 
+    /** ビットで表せるロールの上限数 */
+    public static final int MAX_ROLES = Long.SIZE;
+
     @Id
     @SequenceGenerator(name = "ROLES_ID_GENERATOR", sequenceName = "ROLES_ID_SEQ", allocationSize = 1)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ROLES_ID_GENERATOR")
@@ -43,6 +46,27 @@ public class Role {
         this.name = name;
     }
 
+    /**
+     * ロールのビット位置（ID - 1。IDは変わらないため位置も変わらない）
+     *
+     * @return ビット位置
+     */
+    public int getBit() {
+        if (id == null || id < 1 || id > MAX_ROLES) {
+            throw new IllegalStateException("Role id out of bit range: " + id);
+        }
+        return (int) (id - 1);
+    }
+
+    /**
+     * ロールのビットマスク
+     *
+     * @return ビット位置のみ1の値
+     */
+    public long getMask() {
+        return 1L << getBit();
+    }
+
     public String getDescription() {
         return description;
     }
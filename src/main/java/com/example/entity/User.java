@@ -1,6 +1,8 @@
 package com.example.entity;
 
+import java.text.Normalizer;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 import javax.persistence.Column;
@@ -12,6 +14,8 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
@@ -22,6 +26,9 @@ import javax.persistence.Table;
 @Table(name = "USERS")
 public class User {
 
+    /** 検索用の管理者名の最大長 */
+    private static final int NAME_NORMALIZED_LENGTH = 40;
+
     @Id
     @SequenceGenerator(name = "USERS_ID_GENERATOR", sequenceName = "USERS_ID_SEQ", allocationSize = 1)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "USERS_ID_GENERATOR")
@@ -31,12 +38,19 @@ public class User {
     @Column(name = "EMAIL", length = 50, nullable = false, unique = true)
     private String email;
 
-    @Column(name = "PASSWORD", length = 64, nullable = false)
+    @Column(name = "PASSWORD", length = 100, nullable = false)
     private String password;
 
     @Column(name = "NAME", length = 10, nullable = false)
     private String name;
 
+    /**
+     * 検索用に正規化した管理者名（部分一致で検索するため索引は使わない）
+     * （最大長はバイト数ではなく文字数とし、正規化した日本語の名前でも列の長さを超えないようにする）
+     */
+    @Column(name = "NAME_NORMALIZED", columnDefinition = "VARCHAR2(40 CHAR)")
+    private String nameNormalized;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "USERS_ROLES",
@@ -90,6 +104,34 @@ public class User {
         this.name = name;
     }
 
+    public String getNameNormalized() {
+        return nameNormalized;
+    }
+
+    /**
+     * 検索用の管理者名を更新する（登録・更新時）
+     */
+    @PrePersist
+    @PreUpdate
+    public void normalizeName() {
+        this.nameNormalized = normalizeName(name);
+    }
+
+    /**
+     * 検索用に管理者名を正規化する（全角英数字・半角カナの統一、英字の小文字化）
+     *
+     * @param name 管理者名
+     * @return 正規化した管理者名
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return normalized.length() > NAME_NORMALIZED_LENGTH
+                ? normalized.substring(0, NAME_NORMALIZED_LENGTH) : normalized;
+    }
+
     public Set<Role> getRoles() {
         return roles;
     }
@@ -102,6 +144,19 @@ public class User {
         this.roles.add(role);
     }
 
+    /**
+     * 保持するロールのビットマスク
+     *
+     * @return 各ロールのビットの論理和
+     */
+    public long getRoleMask() {
+        long mask = 0;
+        for (Role role : roles) {
+            mask |= role.getMask();
+        }
+        return mask;
+    }
+
     public boolean hasRole(String roleName) {
         for (Role role : roles) {
             if (role.getName().equals(roleName)) {
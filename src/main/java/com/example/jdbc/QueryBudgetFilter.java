@@ -0,0 +1,80 @@
+package com.example.jdbc;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * リクエスト毎に実行したSQLを数え、上限を超えたリクエストをログに出力する
+ *
+ * 同じSQLを繰り返し実行している場合は、関連の遅延読み込みによるN+1問題の可能性として出力する。
+ * 統計情報はリクエスト属性（{@link QueryStats#ATTRIBUTE}）に格納する。
+ * SQLの記録（{@link QueryCountingPostProcessor}）と同じく、開発・テスト時のみ有効にする。
+ */
+@Component
+@ConditionalOnProperty(name = "slshop.query-budget.enabled", havingValue = "true")
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    /** 1リクエストで実行するSQLの件数の上限 */
+    private final int maxStatements;
+
+    /** 1リクエストで取得する行数の上限 */
+    private final long maxRows;
+
+    /** 同じSQLを実行する回数の上限 */
+    private final int maxRepeats;
+
+    @Autowired
+    public QueryBudgetFilter(@Value("${slshop.query-budget.max-statements:20}") int maxStatements,
+            @Value("${slshop.query-budget.max-rows:10000}") long maxRows,
+            @Value("${slshop.query-budget.max-repeats:5}") int maxRepeats) {
+        this.maxStatements = maxStatements;
+        this.maxRows = maxRows;
+        this.maxRepeats = maxRepeats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryCounter.start();
+        request.setAttribute(QueryStats.ATTRIBUTE, stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.stop();
+            check(request, stats);
+        }
+    }
+
+    private void check(HttpServletRequest request, QueryStats stats) {
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        boolean overBudget = stats.getStatements() > maxStatements || stats.getRows() > maxRows;
+        boolean nPlusOne = repeated != null && repeated.getValue() > maxRepeats;
+        if (!overBudget && !nPlusOne) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Query budget exceeded: ")
+                .append(request.getMethod()).append(' ').append(request.getRequestURI())
+                .append(" (").append(stats).append(")");
+        if (nPlusOne) {
+            message.append(", possible N+1: ").append(repeated.getValue()).append(" x ").append(repeated.getKey());
+        }
+        LOGGER.warn(message.toString());
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.jdbc;
+
+/**
+ * 実行中のリクエストのSQLの統計情報（スレッド毎）
+ *
+ * 計測中でない場合（起動時・定期実行の処理など）は記録しない
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * 計測を開始する
+     *
+     * @return 統計情報
+     */
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 計測を終了する
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 計測中の統計情報
+     *
+     * @return 統計情報（計測中でない場合はnull）
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void statement(String sql) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statement(sql);
+        }
+    }
+
+    static void execute(String sql) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statement(sql);
+            stats.roundTrip();
+        }
+    }
+
+    static void roundTrip() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.roundTrip();
+        }
+    }
+
+    static void row() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.row();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.example.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 実行したSQL・DBとの往復・取得した行数を{@link QueryCounter}に記録するDataSource
+ *
+ * Connection・Statement・ResultSetを動的プロキシで包む。Hibernate・JdbcTemplateのどちらの実行も対象となる
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 作成したStatementを包む
+     */
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // プールへの返却などで比較されるため、プロキシ自身で比較する
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            Object result = QueryCountingDataSource.invoke(target, method, args);
+            if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, new StatementHandler(result, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, new StatementHandler(result, (String) args[0]));
+            }
+            if (result instanceof Statement) {
+                return wrap(Statement.class, new StatementHandler(result, null));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * SQLの実行・バッチの追加を記録し、取得したResultSetを包む
+     */
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Object target;
+
+        /** 準備したSQL（Statementの場合はnull） */
+        private final String sql;
+
+        private StatementHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            if (name.equals("addBatch")) {
+                QueryCounter.statement(executed);
+            } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                QueryCounter.roundTrip();
+            } else if (name.startsWith("execute")) {
+                QueryCounter.execute(executed);
+            }
+            Object result = QueryCountingDataSource.invoke(target, method, args);
+            if (result instanceof ResultSet) {
+                return wrap(ResultSet.class, new ResultSetHandler((ResultSet) result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 取得した行数を記録する
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+
+        private ResultSetHandler(ResultSet target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryCountingDataSource.invoke(target, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                QueryCounter.row();
+            }
+            return result;
+        }
+    }
+
+}
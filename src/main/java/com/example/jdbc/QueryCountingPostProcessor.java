@@ -0,0 +1,26 @@
+package com.example.jdbc;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * DataSourceを、実行したSQLを記録するDataSourceで包む
+ *
+ * 全てのJDBC呼び出しを代理するため、開発・テスト時のみ有効にする（slshop.query-budget.enabled=true）。
+ */
+@Component
+@ConditionalOnProperty(name = "slshop.query-budget.enabled", havingValue = "true")
+public class QueryCountingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)) {
+            return new QueryCountingDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.example.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 1リクエストで実行したSQLの統計情報（リクエストのスレッドのみで更新する）
+ */
+public class QueryStats {
+
+    /** 統計情報を格納するリクエスト属性 */
+    public static final String ATTRIBUTE = QueryStats.class.getName();
+
+    /** SQL毎の実行回数を記録するSQLの種類の上限 */
+    private static final int MAX_DISTINCT_SQL = 100;
+
+    /** 実行したSQLの件数（バッチの各SQLを含む） */
+    private int statements;
+
+    /** DBとの往復の回数（バッチは1回とする） */
+    private int roundTrips;
+
+    /** 取得した行数 */
+    private long rows;
+
+    /** SQL毎の実行回数（実行順） */
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+
+    void statement(String sql) {
+        statements++;
+        if (sql != null && (counts.size() < MAX_DISTINCT_SQL || counts.containsKey(sql))) {
+            counts.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void roundTrip() {
+        roundTrips++;
+    }
+
+    void row() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * SQL毎の実行回数
+     *
+     * @return SQLと実行回数（実行順）
+     */
+    public Map<String, Integer> getCounts() {
+        return counts;
+    }
+
+    /**
+     * 実行回数の最も多いSQL
+     *
+     * @return SQL（実行していない場合はnull）
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> most = null;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (most == null || entry.getValue() > most.getValue()) {
+                most = entry;
+            }
+        }
+        return most;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + roundTrips + " round trips, " + rows + " rows";
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * 処理時間の記録（HDRヒストグラム）
+ *
+ * 記録はRecorderに行い（ロックを取らない）、集計時に前回の集計以降の分を累計のヒストグラムに加える。
+ */
+public class LatencyTimer {
+
+    /** ヒストグラムの有効桁数 */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final LongAdder errors = new LongAdder();
+
+    /** 累計（集計時のみ更新する） */
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+    /** 前回の集計以降の分（使い回す） */
+    private Histogram interval;
+
+    /** 記録の開始日時（ミリ秒） */
+    private long startMillis = System.currentTimeMillis();
+
+    /**
+     * 処理時間を記録する
+     *
+     * @param nanos 処理時間（ナノ秒）
+     * @param error 失敗したかどうか
+     */
+    public void record(long nanos, boolean error) {
+        recorder.recordValue(Math.max(0, nanos));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 記録の開始からの統計情報を取得する
+     *
+     * @param name 名前
+     * @return 統計情報
+     */
+    public synchronized TimerStats snapshot(String name) {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        double seconds = Math.max(1, System.currentTimeMillis() - startMillis) / 1000.0;
+        return new TimerStats(name, total, errors.sum(), seconds);
+    }
+
+    /**
+     * 記録を破棄する
+     */
+    public synchronized void reset() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.reset();
+        errors.reset();
+        startMillis = System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 処理時間の記録の設定
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MetricsInterceptor metricsInterceptor;
+
+    @Autowired
+    public MetricsConfig(MetricsInterceptor metricsInterceptor) {
+        this.metricsInterceptor = metricsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricsInterceptor);
+    }
+
+}
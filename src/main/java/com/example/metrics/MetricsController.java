@@ -0,0 +1,67 @@
+package com.example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+@Controller
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Autowired
+    public MetricsController(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * 処理時間一覧画面の表示
+     *
+     * @param model
+     * @return 処理時間一覧画面
+     */
+    @GetMapping
+    public String listMetrics(Model model) {
+        model.addAttribute("requestStats", metricsRegistry.requestStats());
+        model.addAttribute("serviceStats", metricsRegistry.serviceStats());
+        return "metrics/metrics";
+    }
+
+    /**
+     * 処理時間の統計情報取得
+     *
+     * @return 画面毎・サービスのメソッド毎の件数・パーセンタイルなどの統計情報（JSON）
+     */
+    @GetMapping("/stats")
+    @ResponseBody
+    public Map<String, List<TimerStats>> stats() {
+        Map<String, List<TimerStats>> stats = new LinkedHashMap<>();
+        stats.put("requests", metricsRegistry.requestStats());
+        stats.put("services", metricsRegistry.serviceStats());
+        return stats;
+    }
+
+    /**
+     * 処理時間の記録の破棄
+     *
+     * @param ra
+     * @return 処理時間一覧画面へリダイレクト
+     */
+    @PostMapping("/reset")
+    public String resetMetrics(RedirectAttributes ra) {
+        metricsRegistry.reset();
+        ra.addFlashAttribute("success_message", "記録を破棄しました");
+        return "redirect:/metrics";
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * コントローラーの処理時間（画面の描画を含む）をルートのテンプレート毎に記録する
+ *
+ * 静的ファイルの配信は対象外とする
+ */
+@Component
+public class MetricsInterceptor implements HandlerInterceptor {
+
+    /** 処理の開始時刻を格納するリクエスト属性 */
+    private static final String START = MetricsInterceptor.class.getName() + ".start";
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Autowired
+    public MetricsInterceptor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object start = request.getAttribute(START);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (start == null || pattern == null) {
+            return;
+        }
+        boolean error = ex != null || response.getStatus() >= 500;
+        metricsRegistry.recordRequest(request.getMethod() + " " + pattern, System.nanoTime() - (Long) start, error);
+    }
+
+}
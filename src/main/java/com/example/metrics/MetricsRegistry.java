@@ -0,0 +1,78 @@
+package com.example.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 画面（ルートのテンプレート）毎・サービスのメソッド毎の処理時間の記録
+ */
+@Component
+public class MetricsRegistry {
+
+    /** 画面毎の処理時間（キーは「GET /products/detail/{id}」の形式） */
+    private final Map<String, LatencyTimer> requests = new ConcurrentHashMap<>();
+
+    /** サービスのメソッド毎の処理時間（キーは「ProductService.listAll(String)」の形式） */
+    private final Map<String, LatencyTimer> serviceCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 画面の処理時間を記録する
+     *
+     * @param route HTTPメソッドとルートのテンプレート
+     * @param nanos 処理時間（ナノ秒）
+     * @param error 失敗したかどうか
+     */
+    public void recordRequest(String route, long nanos, boolean error) {
+        requests.computeIfAbsent(route, key -> new LatencyTimer()).record(nanos, error);
+    }
+
+    /**
+     * サービスのメソッドの処理時間を記録する
+     *
+     * @param method クラス名とメソッド名
+     * @param nanos 処理時間（ナノ秒）
+     * @param error 例外が発生したかどうか
+     */
+    public void recordServiceCall(String method, long nanos, boolean error) {
+        serviceCalls.computeIfAbsent(method, key -> new LatencyTimer()).record(nanos, error);
+    }
+
+    /**
+     * 画面毎の統計情報を取得する
+     *
+     * @return 統計情報（p99の降順）
+     */
+    public List<TimerStats> requestStats() {
+        return snapshot(requests);
+    }
+
+    /**
+     * サービスのメソッド毎の統計情報を取得する
+     *
+     * @return 統計情報（p99の降順）
+     */
+    public List<TimerStats> serviceStats() {
+        return snapshot(serviceCalls);
+    }
+
+    /**
+     * 記録を破棄する
+     */
+    public void reset() {
+        requests.values().forEach(LatencyTimer::reset);
+        serviceCalls.values().forEach(LatencyTimer::reset);
+    }
+
+    private static List<TimerStats> snapshot(Map<String, LatencyTimer> timers) {
+        List<TimerStats> stats = new ArrayList<>();
+        timers.forEach((name, timer) -> stats.add(timer.snapshot(name)));
+        stats.sort(Comparator.comparingDouble(TimerStats::getP99).reversed());
+        return stats;
+    }
+
+}
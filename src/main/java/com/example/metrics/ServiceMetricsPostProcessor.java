@@ -0,0 +1,63 @@
+package com.example.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+/**
+ * サービス（@Service）の公開メソッドの処理時間をメソッド毎に記録する
+ *
+ * トランザクションなどの既存のプロキシがある場合は、その外側で計測する
+ */
+@Component
+public class ServiceMetricsPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    private static final long serialVersionUID = 1L;
+
+    /** メソッド毎の記録の名前 */
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceMetricsPostProcessor(MetricsRegistry metricsRegistry) {
+        MethodInterceptor interceptor = invocation -> {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            boolean error = true;
+            try {
+                Object result = invocation.proceed();
+                error = false;
+                return result;
+            } finally {
+                metricsRegistry.recordServiceCall(names.computeIfAbsent(method, ServiceMetricsPostProcessor::name),
+                        System.nanoTime() - start, error);
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Service.class, true), interceptor);
+        this.beforeExistingAdvisors = true;
+        setProxyTargetClass(true);
+    }
+
+    /**
+     * 「クラス名.メソッド名(引数の型)」の形式の名前
+     */
+    private static String name(Method method) {
+        StringJoiner parameters = new StringJoiner(",", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + parameters;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.example.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * 処理時間の統計情報（時間はミリ秒）
+ */
+public class TimerStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+
+    private final long count;
+
+    private final long errors;
+
+    /** 1秒あたりの件数 */
+    private final double throughput;
+
+    private final double mean;
+
+    private final double p50;
+
+    private final double p90;
+
+    private final double p99;
+
+    private final double p999;
+
+    private final double max;
+
+    TimerStats(String name, Histogram histogram, long errors, double seconds) {
+        this.name = name;
+        this.count = histogram.getTotalCount();
+        this.errors = errors;
+        this.throughput = count / seconds;
+        this.mean = histogram.getMean() / NANOS_PER_MILLI;
+        this.p50 = histogram.getValueAtPercentile(50) / NANOS_PER_MILLI;
+        this.p90 = histogram.getValueAtPercentile(90) / NANOS_PER_MILLI;
+        this.p99 = histogram.getValueAtPercentile(99) / NANOS_PER_MILLI;
+        this.p999 = histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+        this.max = histogram.getMaxValue() / NANOS_PER_MILLI;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+}
@@ -1,10 +1,23 @@
 package com.example.product;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,14 +25,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.example.brand.BrandService;
-import com.example.category.CategoryService;
+import com.example.UnsupportedImageException;
+import com.example.UploadSizeExceededException;
+import com.example.cache.ReferenceData;
 import com.example.entity.Brand;
 import com.example.entity.Category;
 import com.example.entity.Product;
+import com.example.entity.ProductImagePaths;
 
 
 @Controller
@@ -28,39 +44,120 @@ public class ProductController {
 
     private final ProductService productService;
 
-    private final BrandService brandService;
-
-    private final CategoryService categoryService;
+    private final ReferenceData referenceData;
 
     private final ProductSaveHelper productSaveHelper;
+
+    private final ProductImportService productImportService;
     
     @Autowired
     public ProductController(
             ProductService productService,
-            BrandService brandService,
-            CategoryService categoryService,
-            ProductSaveHelper productSaveHelper) {
+            ReferenceData referenceData,
+            ProductSaveHelper productSaveHelper,
+            ProductImportService productImportService) {
         this.productService = productService;
-        this.brandService = brandService;
-        this.categoryService = categoryService;
+        this.referenceData = referenceData;
         this.productSaveHelper = productSaveHelper;
+        this.productImportService = productImportService;
     }
 
     /**
      * 商品一覧画面表示
      *
+     * @param keyword 検索キーワード
+     * @param brandIds 絞り込むブランドID
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param after 次ページ取得用のカーソル
+     * @param before 前ページ取得用のカーソル
+     * @param size 1ページの表示件数
      * @param model
      * @return 商品一覧画面
      */
     @GetMapping
-    public String listProducts(@RequestParam(required = false) String keyword, Model model) {
-        // 全商品情報の取得
-        List<Product> listProducts = productService.listAll(keyword);
-        model.addAttribute("listProducts", listProducts);
+    public String listProducts(@RequestParam(required = false) String keyword,
+            @RequestParam(name = "brand", required = false) List<Long> brandIds,
+            @RequestParam(name = "category", required = false) List<Long> categoryIds,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer size,
+            Model model) {
+        // 1ページ分の商品情報の取得
+        ProductPage<ProductListItem> productPage = productService.listPage(
+                keyword, brandIds, categoryIds, ProductCursor.decode(after), ProductCursor.decode(before), size);
+        // ブランド・カテゴリー毎の件数の取得
+        ProductFacets facets = productService.facets(keyword, brandIds, categoryIds);
+        model.addAttribute("listProducts", productPage.getContent());
+        model.addAttribute("productPage", productPage);
         model.addAttribute("keyword", keyword);
+        model.addAttribute("facets", facets);
+        model.addAttribute("listBrands", referenceData.getBrands());
+        model.addAttribute("listCategories", referenceData.getCategories());
+        model.addAttribute("brandIds", brandIds);
+        model.addAttribute("categoryIds", categoryIds);
         return "products/products";
     }
 
+    /**
+     * 商品情報CSVエクスポート
+     *
+     * 全商品情報を読み込みながらレスポンスに書き出す
+     *
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping("/export.csv")
+    public void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        productService.exportCsv(writer);
+        writer.flush();
+    }
+
+    /**
+     * 商品一括登録画面表示
+     *
+     * @return 商品一括登録画面
+     */
+    @GetMapping("/import")
+    public String importForm() {
+        return "products/product_import";
+    }
+
+    /**
+     * 商品情報CSVインポート
+     *
+     * 本文を読み込みながら登録する（CSRFトークンはX-CSRF-TOKENヘッダーで送信する）
+     *
+     * @param request 商品情報のCSV（項目名file）を含むリクエスト
+     * @return 一括登録の結果とメッセージ
+     * @throws IOException
+     */
+    @PostMapping("/import")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importProducts(HttpServletRequest request) throws IOException {
+        // 商品情報の一括登録
+        ProductImportResult result;
+        try {
+            result = productImportService.importCsv(request);
+        } catch (UploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Collections.singletonMap("error_message", "ファイルサイズが上限を超えています"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error_message", "ファイルを選択してください"));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("result", result);
+        if (result.getErrorCount() == 0) {
+            body.put("success_message", result.getImportedCount() + "件の登録に成功しました");
+        } else {
+            body.put("error_message", result.getErrorCount() + "件のエラーがあります");
+        }
+        return ResponseEntity.ok(body);
+    }
+
     /**
      * 商品新規登録画面表示
      *
@@ -71,10 +168,10 @@ public class ProductController {
     public String newProduct(Model model) {
         // 新規登録用に、空の商品情報作成
         Product product = new Product();
-        // 全ブランド情報の取得
-        List<Brand> listBrands = brandService.listAll();
-        // 全カテゴリー情報の取得
-        List<Category> listCategories = categoryService.listAll();
+        // 全ブランド情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Brand> listBrands = referenceData.getBrands();
+        // 全カテゴリー情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Category> listCategories = referenceData.getCategories();
         model.addAttribute("product", product);
         model.addAttribute("listBrands", listBrands);
         model.addAttribute("listCategories", listCategories);
@@ -86,11 +183,13 @@ public class ProductController {
      *
      * @param product 商品情報
      * @param file 商品画像
+     * @param imageFileName アップロード済みの商品画像のファイル名
      * @param redirectAttributes
      * @return 商品一覧画面
      */
     @PostMapping("/save")
-    public String saveProduct(Product product, MultipartFile file, RedirectAttributes ra) throws IOException {
+    public String saveProduct(Product product, MultipartFile file,
+            @RequestParam(required = false) String imageFileName, RedirectAttributes ra) throws IOException {
         // 入力値のチェック
         if (!productService.isValid(product.getName(), product.getDescription())) {
             ra.addFlashAttribute("error_message", "入力に誤りがあります");
@@ -104,7 +203,13 @@ public class ProductController {
         }
                 
         // 商品画像のファイル名を取得し、商品情報に格納する
-        productSaveHelper.setMainImageName(file, product);
+        try {
+            productSaveHelper.setMainImageName(file, product);
+        } catch (UnsupportedImageException e) {
+            ra.addFlashAttribute("error_message", "画像の形式に対応していません");
+            return "redirect:/products/new";
+        }
+        productSaveHelper.setUploadedImageName(imageFileName, product);
         // 商品情報の登録
         Product savedProduct = productService.save(product);
         // 商品画像のファイルを保存する
@@ -113,6 +218,37 @@ public class ProductController {
         return "redirect:/products";
     }
 
+    /**
+     * 商品画像のアップロード処理
+     *
+     * 本文を読み込みながら保存する（CSRFトークンはX-CSRF-TOKENヘッダーで送信する）
+     *
+     * @param request 商品画像（項目名file）を含むリクエスト
+     * @return 画像のファイル名とURL
+     * @throws IOException
+     */
+    @PostMapping("/images")
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> uploadImage(HttpServletRequest request) throws IOException {
+        String fileName;
+        try {
+            fileName = productSaveHelper.uploadImage(request);
+        } catch (UploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Collections.singletonMap("error", "ファイルサイズが上限を超えています"));
+        } catch (UnsupportedImageException e) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "画像の形式に対応していません（JPEG・PNG・GIF・WebP）"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "画像が選択されていません"));
+        }
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("fileName", fileName);
+        body.put("url", request.getContextPath() + "/product-images/" + ProductImagePaths.blobDir(fileName) + fileName);
+        return ResponseEntity.ok(body);
+    }
+
     /**
      * 商品詳細画面表示
      *
@@ -153,10 +289,10 @@ public class ProductController {
             ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
             return "redirect:/products";            
         }
-        // 全ブランド情報の取得
-        List<Brand> listBrands = brandService.listAll();
-        // 全カテゴリー情報の取得
-        List<Category> listCategories = categoryService.listAll();
+        // 全ブランド情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Brand> listBrands = referenceData.getBrands();
+        // 全カテゴリー情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Category> listCategories = referenceData.getCategories();
 
         model.addAttribute("listBrands", listBrands);
         model.addAttribute("listCategories", listCategories);
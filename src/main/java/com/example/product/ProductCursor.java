@@ -0,0 +1,67 @@
+package com.example.product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 商品一覧のページ位置（カーソル）
+ *
+ * 並び順のキー（商品名, 商品ID）を保持し、画面との受け渡し用に文字列へ変換する
+ */
+public class ProductCursor {
+
+    /** 商品名と商品IDの区切り文字 */
+    private static final char SEPARATOR = ':';
+
+    private final String name;
+
+    private final Long id;
+
+    public ProductCursor(String name, Long id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * 画面から受け取った文字列をカーソルに変換する
+     *
+     * @param token カーソル文字列
+     * @return カーソル（変換できない場合はnull）
+     */
+    public static ProductCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = value.indexOf(SEPARATOR);
+            if (index < 1) {
+                return null;
+            }
+            Long id = Long.valueOf(value.substring(0, index));
+            return new ProductCursor(value.substring(index + 1), id);
+        } catch (IllegalArgumentException e) {
+            // 不正なカーソルは先頭ページとして扱う
+            return null;
+        }
+    }
+
+    /**
+     * カーソルを画面受け渡し用の文字列に変換する
+     *
+     * @return カーソル文字列
+     */
+    public String encode() {
+        String value = id + String.valueOf(SEPARATOR) + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.example.product;
+
+/**
+ * 商品情報エクスポートの1行
+ *
+ * エンティティを管理対象にせずに出力するため、出力する列のみを取得する
+ */
+public class ProductExportRow {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String description;
+
+    private final int price;
+
+    private final double length;
+
+    private final double width;
+
+    private final double height;
+
+    private final double weight;
+
+    private final String brandName;
+
+    private final String categoryName;
+
+    public ProductExportRow(Long id, String name, String description, int price,
+            double length, double width, double height, double weight,
+            String brandName, String categoryName) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.length = length;
+        this.width = width;
+        this.height = height;
+        this.weight = weight;
+        this.brandName = brandName;
+        this.categoryName = categoryName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.example.product;
+
+import java.util.Map;
+
+/**
+ * ブランド・カテゴリー毎の商品件数
+ */
+public class ProductFacets {
+
+    /** ブランドIDに紐づく件数 */
+    private final Map<Long, Integer> brandCounts;
+
+    /** カテゴリーIDに紐づく件数 */
+    private final Map<Long, Integer> categoryCounts;
+
+    public ProductFacets(Map<Long, Integer> brandCounts, Map<Long, Integer> categoryCounts) {
+        this.brandCounts = brandCounts;
+        this.categoryCounts = categoryCounts;
+    }
+
+    /**
+     * ブランドに紐づく件数
+     *
+     * @param brandId ブランドID
+     * @return 件数（該当が無い場合は0）
+     */
+    public int getBrandCount(Long brandId) {
+        return brandCounts.getOrDefault(brandId, 0);
+    }
+
+    /**
+     * カテゴリーに紐づく件数
+     *
+     * @param categoryId カテゴリーID
+     * @return 件数（該当が無い場合は0）
+     */
+    public int getCategoryCount(Long categoryId) {
+        return categoryCounts.getOrDefault(categoryId, 0);
+    }
+
+    public Map<Long, Integer> getBrandCounts() {
+        return brandCounts;
+    }
+
+    public Map<Long, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.example.product;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.entity.ProductImageVariant;
+
+/**
+ * 商品画像の縮小版（サムネイル・詳細画面用）の作成処理
+ *
+ * 作成は件数上限付きのキューとスレッドプールで行い、リクエストのスレッドでは行わない。
+ * キューが溢れた場合は作成依頼を破棄してログに出力する（縮小版が無い画像は、次回起動時の作成対象となる）。
+ * 画素数が上限を超える画像は、展開前に画像サイズを確認して作成対象外とする。
+ */
+@Component
+public class ProductImageResizer {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductImageResizer.class);
+
+    /** JPEGの画質 */
+    private static final float JPEG_QUALITY = 0.85f;
+
+    /** 商品画像のディレクトリ */
+    private final Path rootDir;
+
+    /** 縮小版を作成する画像の最大画素数 */
+    private final long maxPixels;
+
+    private final ThreadPoolExecutor executor;
+
+    /** 起動時の作成依頼がキューに置ける件数（残りはアップロードされた画像の作成依頼のために空けておく） */
+    private final Semaphore backfillPermits;
+
+    @Autowired
+    public ProductImageResizer(ProductImageStore productImageStore,
+            @Value("${slshop.product-image.threads:2}") int threads,
+            @Value("${slshop.product-image.queue-capacity:100}") int queueCapacity,
+            @Value("${slshop.product-image.max-pixels:25000000}") long maxPixels) {
+        this.rootDir = productImageStore.getRootDir();
+        this.maxPixels = maxPixels;
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "product-image-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // キューが溢れた場合は例外とし、呼び出し元で破棄してログに出力する
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.backfillPermits = new Semaphore(Math.max(1, queueCapacity / 2));
+    }
+
+    /**
+     * 商品画像の縮小版の作成を依頼する（キューが溢れている場合は破棄する）
+     *
+     * @param source 商品画像のファイル
+     */
+    public void submit(Path source) {
+        try {
+            executor.execute(() -> createVariants(source));
+        } catch (RejectedExecutionException e) {
+            // 破棄した画像は縮小版が無いため、次回起動時に作成される
+            LOGGER.warn("Product image resize queue is full; discarded: " + source);
+        }
+    }
+
+    /**
+     * 起動時に、縮小版が無い商品画像の縮小版の作成を専用のスレッドから依頼する
+     *
+     * キューに置く件数を制限し、空きが出るまで待ちながら依頼する（起動直後のアップロードの作成依頼を破棄させない）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Thread thread = new Thread(this::backfillAll, "product-image-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 縮小版が無い全ての商品画像の縮小版を作成する
+     */
+    void backfillAll() {
+        if (!Files.isDirectory(rootDir)) {
+            return;
+        }
+        // 商品ID毎のディレクトリ（product-images/{id}/）と、ハッシュ値で振り分けたディレクトリ（product-images/blobs/ab/cd/）が対象
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(rootDir, 4)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.error("Could not scan directory: " + rootDir, e);
+            return;
+        }
+        for (Path file : files) {
+            String image = file.getFileName().toString();
+            // 書き出し途中の一時ファイル・縮小版・縮小版作成済みの画像は対象外
+            if (!image.startsWith(".") && !ProductImageVariant.isVariant(image)
+                    && !hasVariants(file.getParent(), image)) {
+                try {
+                    backfillPermits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            createVariants(file);
+                        } finally {
+                            backfillPermits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    backfillPermits.release();
+                    if (executor.isShutdown()) {
+                        return;
+                    }
+                    LOGGER.warn("Product image resize queue is full; discarded: " + file);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 全ての縮小版を作成する（元画像と同じディレクトリに作成する）
+     *
+     * @param source 商品画像のファイル
+     */
+    void createVariants(Path source) {
+        Path dir = source.getParent();
+        String image = source.getFileName().toString();
+        if (hasVariants(dir, image)) {
+            // 同じ内容の画像が登録済みの場合
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            BufferedImage original = read(source);
+            if (original == null) {
+                return;
+            }
+            for (ProductImageVariant variant : ProductImageVariant.values()) {
+                BufferedImage resized = resize(original, variant.getMaxSize());
+                writeJpeg(resized, dir.resolve(variant.fileName(image)));
+            }
+            LOGGER.info("Product image variants created: " + source + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            LOGGER.error("Could not create image variants: " + source, e);
+        }
+    }
+
+    /**
+     * 画像を読み込む（展開前に画像サイズを確認し、最大画素数を超える場合は読み込まない）
+     *
+     * @param source 商品画像のファイル
+     * @return 画像（対応していない形式・最大画素数を超える場合はnull）
+     * @throws IOException
+     */
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                LOGGER.warn("Unsupported image format: " + source);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    LOGGER.warn("Image too large to resize (" + reader.getWidth(0) + "x" + reader.getHeight(0)
+                            + "): " + source);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 縦横比を保ったまま、長辺が指定サイズ以下になるよう縮小する（拡大はしない）
+     *
+     * 1回で大きく縮小すると画質が落ちるため、半分ずつ段階的に縮小する
+     *
+     * @param source 元画像
+     * @param maxSize 長辺の最大サイズ
+     * @return 縮小した画像
+     */
+    static BufferedImage resize(BufferedImage source, int maxSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = toRgb(source);
+        while (width != targetWidth || height != targetHeight) {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * JPEGで出力できるよう、透過色を白で塗りつぶしたRGB画像に変換する
+     */
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(source, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * JPEGで書き出す（一時ファイルに書き出してから置き換え、書き出し途中のファイルを配信しない）
+     */
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".resize", ".tmp");
+        try {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+            ImageWriter writer = writers.next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 全ての縮小版が作成済みかどうか
+     */
+    private static boolean hasVariants(Path dir, String image) {
+        for (ProductImageVariant variant : ProductImageVariant.values()) {
+            if (!Files.exists(dir.resolve(variant.fileName(image)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,384 @@
+package com.example.product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.UnsupportedImageException;
+import com.example.UploadSizeExceededException;
+import com.example.entity.ProductImagePaths;
+
+/**
+ * 商品画像の保存先（内容のSHA-256をファイル名とする）
+ *
+ * 同じ内容の画像は1つだけ保存し、複数の商品から参照する。
+ * ファイル名はハッシュ値の先頭4文字で2階層に振り分けたディレクトリ（blobs/ab/cd/）に置く。
+ * 参照数は商品情報の画像ファイル名から数え、参照されなくなった画像は猶予期間の経過後に削除する。
+ * 配信時のContent-Typeは拡張子で決まるため、画像の拡張子かつ内容が画像のファイルのみ保存する（HTML・SVG等は保存しない）。
+ */
+@Component
+public class ProductImageStore {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductImageStore.class);
+
+    /** 保存できる画像の拡張子 */
+    public static final Set<String> EXTENSIONS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("jpg", "jpeg", "png", "gif", "webp")));
+
+    /** 保存できる画像の形式（ImageIOの形式名） */
+    private static final Set<String> FORMATS = new HashSet<>(Arrays.asList("jpeg", "png", "gif", "webp"));
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** 書き込み用のバッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 書き込み用のバッファ（ヒープ外に確保し、スレッド毎に使い回す） */
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final ProductRepository productRepository;
+
+    /** 商品画像のディレクトリ（画像のディレクトリ配下のproduct-images） */
+    private final Path rootDir;
+
+    /** 保存直後の画像を削除しないための猶予期間（ミリ秒） */
+    private final long graceMillis;
+
+    /** 削除候補の画像のファイル名と商品情報から外れた日時 */
+    private final Map<String, Long> released = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductImageStore(ProductRepository productRepository,
+            @Value("${slshop.image.root-dir:.}") String imageRootDir,
+            @Value("${slshop.image-store.gc-grace-minutes:60}") long graceMinutes) {
+        this.productRepository = productRepository;
+        this.rootDir = Paths.get(imageRootDir).resolve(ProductImagePaths.IMAGE_DIR);
+        this.graceMillis = TimeUnit.MINUTES.toMillis(graceMinutes);
+    }
+
+    /**
+     * アップロードされた画像を保存する
+     *
+     * @param multipartFile アップロードされた画像
+     * @return 画像のファイル名（商品情報に格納する値）
+     * @throws IOException
+     */
+    public String store(MultipartFile multipartFile) throws IOException {
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            return store(inputStream, multipartFile.getOriginalFilename(), Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 画像を読み込みながら保存する
+     *
+     * 固定サイズのバッファで読み込み、ハッシュ値の計算と一時ファイルへの書き込みを同時に行う（1回の書き込みで保存する）。
+     * 同じ内容の画像が保存済みの場合は保存しない
+     *
+     * @param inputStream 画像の内容
+     * @param originalFilename 元のファイル名（拡張子の取得に使う）
+     * @param maxBytes 最大サイズ
+     * @return 画像のファイル名（商品情報に格納する値）
+     * @throws UploadSizeExceededException 最大サイズを超えた場合
+     * @throws UnsupportedImageException 画像の拡張子でない、または内容が画像でない場合
+     * @throws IOException
+     */
+    public String store(InputStream inputStream, String originalFilename, long maxBytes) throws IOException {
+        String extension = extension(originalFilename);
+        Path blobDir = Files.createDirectories(rootDir.resolve(ProductImagePaths.BLOB_DIR));
+        Path temp = Files.createTempFile(blobDir, ".upload", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            ReadableByteChannel source = Channels.newChannel(inputStream);
+            ByteBuffer buffer = BUFFER.get();
+            long total = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                buffer.clear();
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new UploadSizeExceededException(maxBytes);
+                    }
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            if (!isImage(temp)) {
+                throw new UnsupportedImageException(originalFilename);
+            }
+            String fileName = toHex(digest.digest()) + "." + extension;
+            Path target = resolve(fileName);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // 保存済みの場合は、削除対象とならないよう更新日時のみ更新する
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 商品画像のディレクトリ
+     *
+     * @return 商品画像のディレクトリ
+     */
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * 画像のファイル名から保存先のパスを取得する
+     *
+     * @param fileName 画像のファイル名
+     * @return 保存先のパス
+     */
+    public Path resolve(String fileName) {
+        String dir = ProductImagePaths.blobDir(fileName);
+        if (dir == null) {
+            throw new IllegalArgumentException("Not a content-addressed image: " + fileName);
+        }
+        return rootDir.resolve(dir + fileName);
+    }
+
+    /**
+     * 商品情報から外れた画像を削除候補とする
+     *
+     * 商品情報の保存と同じ画像の再登録が並行する場合があるため、ここでは削除しない。
+     * 猶予期間の経過後に{@link #collectReleased()}で参照を確認して削除する
+     *
+     * @param fileName 商品情報から外れた画像のファイル名
+     */
+    public void release(String fileName) {
+        if (ProductImagePaths.blobDir(fileName) != null) {
+            released.put(fileName, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 削除候補の画像のうち、猶予期間を過ぎても参照されていない画像を削除する
+     *
+     * 参照は同じハッシュ値の画像のファイル名（拡張子違い）と完全一致で確認する。
+     * 削除候補はメモリ上にのみ保持するため、再起動で失われた分は{@link #collectGarbage()}で削除する
+     *
+     * @return 削除したファイル数
+     */
+    @Scheduled(fixedDelayString = "${slshop.image-store.release-check-ms:600000}")
+    public int collectReleased() {
+        int deleted = 0;
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> iterator = released.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> candidate = iterator.next();
+            if (now - candidate.getValue() < graceMillis) {
+                continue;
+            }
+            iterator.remove();
+            String hash = candidate.getKey().substring(0, ProductImagePaths.HASH_LENGTH);
+            List<String> sameContent = EXTENSIONS.stream().map(extension -> hash + "." + extension)
+                    .collect(Collectors.toList());
+            if (productRepository.countByImageIn(sameContent) == 0) {
+                deleted += deleteBlob(resolve(candidate.getKey()).getParent(), hash);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 全商品情報の参照と照合し、参照されていない画像を削除する
+     *
+     * 保存から猶予期間内の画像は、商品情報の登録前の可能性があるため削除しない
+     *
+     * @return 削除したファイル数
+     */
+    @Scheduled(cron = "${slshop.image-store.gc-cron:0 0 3 * * *}")
+    public int collectGarbage() {
+        Path blobDir = rootDir.resolve(ProductImagePaths.BLOB_DIR);
+        if (!Files.isDirectory(blobDir)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        Set<String> referenced = new HashSet<>();
+        for (String image : productRepository.findAllImages()) {
+            if (ProductImagePaths.blobDir(image) != null) {
+                referenced.add(image.substring(0, ProductImagePaths.HASH_LENGTH));
+            }
+        }
+
+        int deleted = 0;
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(blobDir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.error("Could not walk directory: " + blobDir, e);
+            return 0;
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            // 縮小版も元画像と同じハッシュ値で始まる。一時ファイルは参照されない
+            boolean orphan = name.startsWith(".")
+                    || name.length() < ProductImagePaths.HASH_LENGTH
+                    || !referenced.contains(name.substring(0, ProductImagePaths.HASH_LENGTH));
+            if (orphan && isExpired(file) && delete(file)) {
+                deleted++;
+            }
+        }
+        LOGGER.info("Product image store collected: " + deleted + " files deleted, "
+                + referenced.size() + " images referenced in " + (System.currentTimeMillis() - start) + " ms");
+        return deleted;
+    }
+
+    /**
+     * ハッシュ値で始まるファイル（元画像と縮小版）のうち、猶予期間内に保存されていないファイルを削除する
+     *
+     * @return 削除したファイル数
+     */
+    private int deleteBlob(Path dir, String hash) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            return (int) stream.filter(file -> file.getFileName().toString().startsWith(hash))
+                    .filter(this::isExpired)
+                    .filter(this::delete)
+                    .count();
+        } catch (IOException e) {
+            LOGGER.error("Could not list directory: " + dir, e);
+            return 0;
+        }
+    }
+
+    private boolean isExpired(Path file) {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > graceMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.error("Could not delete file: " + file, e);
+            return false;
+        }
+    }
+
+    /**
+     * 元のファイル名から拡張子を取得する
+     *
+     * @throws UnsupportedImageException 画像の拡張子でない場合
+     */
+    private static String extension(String originalFilename) throws UnsupportedImageException {
+        String extension = StringUtils.getFilenameExtension(StringUtils.cleanPath(
+                originalFilename != null ? originalFilename : ""));
+        if (extension == null || !EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT))) {
+            throw new UnsupportedImageException(originalFilename);
+        }
+        return extension.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * ファイルの内容が保存できる形式の画像かどうか（ファイルの先頭のみ読み込んで判定する）
+     *
+     * @param file 判定するファイル
+     * @return true:画像 false:それ以外
+     * @throws IOException
+     */
+    static boolean isImage(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return false;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            while (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    if (FORMATS.contains(reader.getFormatName().toLowerCase(Locale.ROOT))) {
+                        return true;
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+        // WebPは標準の読み込み処理が無いため、ファイルの先頭（"RIFF" + サイズ + "WEBP"）で判定する
+        byte[] header = new byte[12];
+        try (InputStream in = Files.newInputStream(file)) {
+            int length = 0;
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
+            return length == header.length
+                    && new String(header, 0, 4, StandardCharsets.US_ASCII).equals("RIFF")
+                    && new String(header, 8, 4, StandardCharsets.US_ASCII).equals("WEBP");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.example.product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品情報一括登録の結果
+ */
+public class ProductImportResult {
+
+    /** 保持するエラーの上限件数 */
+    static final int MAX_ERRORS = 1000;
+
+    private int importedCount;
+
+    private int errorCount;
+
+    private long elapsedMillis;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 登録件数を加算する
+     *
+     * @param count 登録件数
+     */
+    void addImported(int count) {
+        importedCount += count;
+    }
+
+    /**
+     * エラーを追加する（上限を超えた分は件数のみ数える）
+     *
+     * @param lineNumber 行番号
+     * @param message エラー内容
+     */
+    void addError(int lineNumber, String message) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(lineNumber, message));
+        }
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 1秒あたりの登録件数
+     *
+     * @return 登録件数/秒
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? importedCount : importedCount * 1000L / elapsedMillis;
+    }
+
+    /**
+     * 1行分のエラー
+     */
+    public static class RowError {
+
+        private final int lineNumber;
+
+        private final String message;
+
+        public RowError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+}
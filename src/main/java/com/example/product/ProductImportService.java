@@ -0,0 +1,373 @@
+package com.example.product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.example.CsvFormatException;
+import com.example.CsvReader;
+import com.example.MultipartStreamReader;
+import com.example.UploadSizeExceededException;
+import com.example.cache.ReferenceData;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+
+/**
+ * 商品情報の一括登録処理
+ *
+ * CSVを一定件数ずつ読み込み、入力値チェックは並列に、重複チェックはIN句でまとめて行い、
+ * 採番はまとめて1回、登録はJDBCのバッチで行う。
+ * 重複チェック後に同じ商品名が登録された場合は、商品名の一意制約違反となった行をエラーとする。
+ */
+@Service
+public class ProductImportService {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductImportService.class);
+
+    /** 1回にまとめて処理する件数（OracleのIN句の上限1000件未満とする） */
+    static final int CHUNK_SIZE = 500;
+
+    /** CSVの列数（商品名,商品説明,金額,長辺,短辺,高さ,重量,ブランド名,カテゴリー名） */
+    static final int COLUMN_COUNT = 9;
+
+    /** 商品IDをまとめて採番する */
+    private static final String NEXT_IDS_SQL =
+            "SELECT PRODUCTS_ID_SEQ.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+
+    /** 商品情報の登録 */
+    private static final String INSERT_SQL = "INSERT INTO PRODUCTS "
+            + "(ID, NAME, DESCRIPTION, PRICE, LENGTH, WIDTH, HEIGHT, WEIGHT, BRAND_ID, CATEGORY_ID) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ProductService productService;
+
+    private final ProductRepository productRepository;
+
+    private final ReferenceData referenceData;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 一括登録のリクエストの最大サイズ */
+    private final long maxRequestSize;
+
+    @Autowired
+    public ProductImportService(ProductService productService, ProductRepository productRepository,
+            ReferenceData referenceData, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            @Value("${slshop.import.max-request-size:100MB}") DataSize maxRequestSize) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.referenceData = referenceData;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    /**
+     * リクエストの本文からCSVを読み込みながら商品情報を一括登録する
+     *
+     * コンテナによるマルチパートの展開を経由しないため、アップロード全体の上限
+     * （spring.servlet.multipart.*）とは別に、slshop.import.max-request-sizeまで受け付ける
+     *
+     * @param request CSV（項目名file）を含むmultipart/form-dataのリクエスト
+     * @return 一括登録の結果
+     * @throws UploadSizeExceededException Content-Lengthが最大サイズを超えた場合（登録前に拒否する）
+     * @throws IllegalArgumentException CSVが含まれていない場合
+     * @throws IOException
+     */
+    public ProductImportResult importCsv(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxRequestSize) {
+            // 本文を読む前に拒否する
+            throw new UploadSizeExceededException(maxRequestSize);
+        }
+        String boundary = MultipartStreamReader.boundary(request.getContentType());
+        if (boundary == null) {
+            throw new IllegalArgumentException("Not a multipart request");
+        }
+        MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, maxRequestSize);
+        MultipartStreamReader.Part part;
+        while ((part = reader.nextPart()) != null) {
+            if ("file".equals(part.getName()) && part.getFileName() != null && !part.getFileName().isEmpty()) {
+                return importCsv(part.getInputStream());
+            }
+        }
+        throw new IllegalArgumentException("No file in request");
+    }
+
+    /**
+     * CSVから商品情報を一括登録する
+     *
+     * 1行目は見出し行として読み飛ばす。エラーのある行は登録せず、行番号とエラー内容を返却する。
+     * 一定件数毎にコミットするため、CSVの形式の誤り・サイズの超過で途中から読み込めない場合も
+     * 例外とせず、それまでの登録結果とエラーの行番号を返却する。
+     *
+     * @param inputStream CSV（UTF-8）
+     * @return 一括登録の結果
+     * @throws IOException
+     */
+    public ProductImportResult importCsv(InputStream inputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        ProductImportResult result = new ProductImportResult();
+        Map<String, Brand> brands = new HashMap<>();
+        for (Brand brand : referenceData.getBrands()) {
+            brands.put(brand.getName(), brand);
+        }
+        Map<String, Category> categories = new HashMap<>();
+        for (Category category : referenceData.getCategories()) {
+            categories.put(category.getName(), category);
+        }
+
+        try (CsvReader reader = new CsvReader(
+                new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)))) {
+            // 見出し行を読み飛ばす
+            readRecord(reader, result);
+
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<String> record;
+            while ((record = readRecord(reader, result)) != null) {
+                chunk.add(new ImportRow(reader.getLineNumber(), record));
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, brands, categories, result);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, brands, categories, result);
+            }
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        LOGGER.info("Product import finished: " + result.getImportedCount() + " imported, "
+                + result.getErrorCount() + " errors in " + result.getElapsedMillis() + " ms");
+        return result;
+    }
+
+    /**
+     * CSVの1レコードを読み込む
+     *
+     * 読み込めない場合はエラーとして記録し、以降のレコードは読み込まない
+     * （引用符が閉じられていない場合は、ファイルの終端までを1つの値として読み込んでいるため）
+     *
+     * @param reader CSV
+     * @param result 一括登録の結果
+     * @return 値のリスト（ファイルの終端、または以降を読み込めない場合はnull）
+     * @throws IOException
+     */
+    private static List<String> readRecord(CsvReader reader, ProductImportResult result) throws IOException {
+        try {
+            return reader.readRecord();
+        } catch (CsvFormatException e) {
+            result.addError(e.getLineNumber(), "引用符が閉じられていないため、以降の行は登録していません");
+            return null;
+        } catch (UploadSizeExceededException e) {
+            result.addError(reader.getLineNumber() + 1, "ファイルサイズが上限を超えたため、以降の行は登録していません");
+            return null;
+        }
+    }
+
+    /**
+     * 一定件数分の商品情報を登録する
+     */
+    private void importChunk(List<ImportRow> chunk, Map<String, Brand> brands, Map<String, Category> categories,
+            ProductImportResult result) {
+        // 入力値のチェック（行毎に独立しているため並列に行う）
+        chunk.parallelStream().forEach(row -> row.parse(brands, categories, productService));
+
+        // ファイル内の重複チェック
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        Set<String> names = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null && !names.add(row.product.getName())) {
+                row.error = "重複しています";
+            }
+            if (row.error == null) {
+                valid.add(row);
+            }
+        }
+
+        // 登録済みの商品との重複チェック（登録済みの行は前の処理でコミット済みのため、ファイル全体の重複も検出できる）
+        if (!valid.isEmpty()) {
+            Set<String> existingNames = new HashSet<>(productRepository.findExistingNames(names));
+            if (!existingNames.isEmpty()) {
+                List<ImportRow> unique = new ArrayList<>(valid.size());
+                for (ImportRow row : valid) {
+                    if (existingNames.contains(row.product.getName())) {
+                        row.error = "重複しています";
+                    } else {
+                        unique.add(row);
+                    }
+                }
+                valid = unique;
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            insert(valid);
+        }
+
+        List<Product> imported = new ArrayList<>(valid.size());
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                imported.add(row.product);
+            } else {
+                result.addError(row.lineNumber, row.error);
+            }
+        }
+        result.addImported(imported.size());
+        // 検索用インデックス・キャッシュに反映する
+        productService.reindex(imported);
+    }
+
+    /**
+     * 採番と登録をまとめて行う（失敗した場合は全行をエラーとする）
+     *
+     * 重複チェック後に他の処理で同じ商品名が登録され、一意制約違反となった場合は、
+     * 1行ずつ登録し直して重複した行のみをエラーとする
+     *
+     * @param rows 登録する行
+     */
+    private void insert(List<ImportRow> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 商品IDを件数分まとめて採番する
+                List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, rows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    rows.get(i).product.setId(ids.get(i));
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+                    Object[] args = insertArgs(row.product);
+                    for (int i = 0; i < args.length; i++) {
+                        ps.setObject(i + 1, args[i]);
+                    }
+                });
+            });
+        } catch (DuplicateKeyException e) {
+            insertEach(rows);
+        } catch (DataAccessException e) {
+            LOGGER.error("Product import batch failed", e);
+            for (ImportRow row : rows) {
+                row.error = "登録に失敗しました";
+            }
+        }
+    }
+
+    /**
+     * 1行ずつ登録し、一意制約違反となった行をエラーとする（採番済みの行に対して呼び出すこと）
+     *
+     * @param rows 登録する行
+     */
+    private void insertEach(List<ImportRow> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (ImportRow row : rows) {
+                    Object savepoint = status.createSavepoint();
+                    try {
+                        jdbcTemplate.update(INSERT_SQL, insertArgs(row.product));
+                        status.releaseSavepoint(savepoint);
+                    } catch (DuplicateKeyException e) {
+                        status.rollbackToSavepoint(savepoint);
+                        row.error = "重複しています";
+                    }
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.error("Product import failed", e);
+            for (ImportRow row : rows) {
+                row.error = "登録に失敗しました";
+            }
+        }
+    }
+
+    /**
+     * 商品情報の登録のパラメーター
+     *
+     * @param product 採番済みの商品情報
+     * @return INSERT_SQLのパラメーター
+     */
+    private static Object[] insertArgs(Product product) {
+        return new Object[] { product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getLength(), product.getWidth(), product.getHeight(), product.getWeight(),
+                product.getBrand().getId(), product.getCategory().getId() };
+    }
+
+    /**
+     * CSVの1行
+     */
+    private static final class ImportRow {
+
+        private final int lineNumber;
+
+        private final List<String> values;
+
+        private Product product;
+
+        private String error;
+
+        private ImportRow(int lineNumber, List<String> values) {
+            this.lineNumber = lineNumber;
+            this.values = values;
+        }
+
+        /**
+         * 値を商品情報に変換し、入力値をチェックする
+         */
+        private void parse(Map<String, Brand> brands, Map<String, Category> categories,
+                ProductService productService) {
+            if (values.size() != COLUMN_COUNT) {
+                error = "列数に誤りがあります";
+                return;
+            }
+            Product product = new Product(values.get(0).trim(), values.get(1).trim());
+            if (!productService.isValid(product.getName(), product.getDescription())) {
+                error = "入力に誤りがあります";
+                return;
+            }
+            try {
+                product.setPrice(Integer.parseInt(values.get(2).trim()));
+                product.setLength(Double.parseDouble(values.get(3).trim()));
+                product.setWidth(Double.parseDouble(values.get(4).trim()));
+                product.setHeight(Double.parseDouble(values.get(5).trim()));
+                product.setWeight(Double.parseDouble(values.get(6).trim()));
+            } catch (NumberFormatException e) {
+                error = "数値の形式に誤りがあります";
+                return;
+            }
+            product.setBrand(brands.get(values.get(7).trim()));
+            if (product.getBrand() == null) {
+                error = "ブランドが見つかりません";
+                return;
+            }
+            product.setCategory(categories.get(values.get(8).trim()));
+            if (product.getCategory() == null) {
+                error = "カテゴリーが見つかりません";
+                return;
+            }
+            this.product = product;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.example.product;
+
+/**
+ * 商品一覧画面の表示項目
+ *
+ * 一覧表示に必要な列のみをブランド・カテゴリーと結合した1回のクエリで取得する
+ */
+public class ProductListItem {
+
+    private final Long id;
+
+    private final String name;
+
+    private final int price;
+
+    private final String brandName;
+
+    private final String categoryName;
+
+    public ProductListItem(Long id, String name, int price, String brandName, String categoryName) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.brandName = brandName;
+        this.categoryName = categoryName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+}
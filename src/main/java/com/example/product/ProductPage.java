@@ -0,0 +1,68 @@
+package com.example.product;
+
+import java.util.List;
+
+/**
+ * 商品一覧の1ページ分の情報
+ *
+ * @param <T> 一覧に表示する要素の型
+ */
+public class ProductPage<T> {
+
+    private final List<T> content;
+
+    private final ProductCursor firstCursor;
+
+    private final ProductCursor lastCursor;
+
+    private final boolean hasPrevious;
+
+    private final boolean hasNext;
+
+    private final int size;
+
+    public ProductPage(List<T> content, ProductCursor firstCursor, ProductCursor lastCursor,
+            boolean hasPrevious, boolean hasNext, int size) {
+        this.content = content;
+        this.firstCursor = firstCursor;
+        this.lastCursor = lastCursor;
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+        this.size = size;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean isHasPrevious() {
+        return hasPrevious;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 前ページ取得用のカーソル文字列
+     *
+     * @return カーソル文字列（前ページが無い場合はnull）
+     */
+    public String getPreviousCursor() {
+        return (hasPrevious && firstCursor != null) ? firstCursor.encode() : null;
+    }
+
+    /**
+     * 次ページ取得用のカーソル文字列
+     *
+     * @return カーソル文字列（次ページが無い場合はnull）
+     */
+    public String getNextCursor() {
+        return (hasNext && lastCursor != null) ? lastCursor.encode() : null;
+    }
+
+}
@@ -1,9 +1,16 @@
 package com.example.product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.entity.Product;
 
@@ -25,6 +32,31 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     public Product findByName(String name);
 
+    /**
+     * 画像を参照している商品情報の件数取得
+     *
+     * @param images 画像のファイル名（完全一致）
+     * @return 取得件数
+     */
+    public long countByImageIn(Collection<String> images);
+
+    /**
+     * 商品情報が参照している画像のファイル名の取得
+     *
+     * @return 画像のファイル名のリスト
+     */
+    @Query("SELECT DISTINCT p.image FROM Product p WHERE p.image IS NOT NULL")
+    public List<String> findAllImages();
+
+    /**
+     * 登録済みの商品名の取得
+     *
+     * @param names 確認したい商品名
+     * @return 登録済みの商品名のリスト
+     */
+    @Query("SELECT p.name FROM Product p WHERE p.name IN ?1")
+    public List<String> findExistingNames(Collection<String> names);
+
     /**
      * 商品情報検索クエリ
      *
@@ -37,4 +69,215 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             + "OR p.category.name LIKE %?1%")
     public List<Product> search(String keyword);
 
+    /** 商品一覧の表示項目をブランド・カテゴリーと結合して取得する */
+    String SELECT_LIST_ITEM = "SELECT new com.example.product.ProductListItem("
+            + "p.id, p.name, p.price, b.name, c.name) "
+            + "FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c ";
+
+    /** 検索キーワードの条件 */
+    String KEYWORD_CONDITION = "(p.name LIKE %?1% "
+            + "OR p.description LIKE %?1% "
+            + "OR b.name LIKE %?1% "
+            + "OR c.name LIKE %?1%) ";
+
+    /**
+     * 検索キーワード・ブランド・カテゴリーの絞り込み条件（検索用インデックスの構築前に利用する）
+     *
+     * IN句に空のリストを渡せないため、絞り込まない場合はフラグをtrueにし、IDのリストにはダミーの値を渡す
+     */
+    String FILTER_CONDITION = "(:keyword IS NULL OR p.name LIKE CONCAT('%', :keyword, '%') "
+            + "OR p.description LIKE CONCAT('%', :keyword, '%') "
+            + "OR b.name LIKE CONCAT('%', :keyword, '%') "
+            + "OR c.name LIKE CONCAT('%', :keyword, '%')) "
+            + "AND (:anyBrand = TRUE OR b.id IN :brandIds) "
+            + "AND (:anyCategory = TRUE OR c.id IN :categoryIds) ";
+
+    /**
+     * 商品情報エクスポート用の全件取得クエリ
+     *
+     * 読み込んだ行から順に返却するため、呼び出し側は読み取り専用トランザクション内で
+     * 利用し、使用後にクローズすること
+     *
+     * @return 商品情報エクスポートの行（商品IDの昇順）
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.product.ProductExportRow("
+            + "p.id, p.name, p.description, p.price, p.length, p.width, p.height, p.weight, b.name, c.name) "
+            + "FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c "
+            + "ORDER BY p.id ASC")
+    public Stream<ProductExportRow> streamAllForExport();
+
+    /**
+     * 商品IDに紐づく商品一覧の表示項目取得クエリ
+     *
+     * @param ids 商品IDのリスト
+     * @return 商品一覧の表示項目のリスト（順不同）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE p.id IN ?1")
+    public List<ProductListItem> findListItemsByIdIn(List<Long> ids);
+
+    /**
+     * 商品一覧の先頭ページ取得クエリ
+     *
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> findFirstPage(Pageable pageable);
+
+    /**
+     * 指定位置より後ろの商品一覧取得クエリ
+     *
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE p.name > ?1 OR (p.name = ?1 AND p.id > ?2) "
+            + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> findPageAfter(String name, Long id, Pageable pageable);
+
+    /**
+     * 指定位置より前の商品一覧取得クエリ
+     *
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの降順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE p.name < ?1 OR (p.name = ?1 AND p.id < ?2) "
+            + "ORDER BY p.name DESC, p.id DESC")
+    public List<ProductListItem> findPageBefore(String name, Long id, Pageable pageable);
+
+    /**
+     * 商品情報検索の先頭ページ取得クエリ
+     *
+     * @param keyword 検索キーワード
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + KEYWORD_CONDITION
+            + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> searchFirstPage(String keyword, Pageable pageable);
+
+    /**
+     * 指定位置より後ろの商品情報検索クエリ
+     *
+     * @param keyword 検索キーワード
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + KEYWORD_CONDITION
+            + "AND (p.name > ?2 OR (p.name = ?2 AND p.id > ?3)) "
+            + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> searchPageAfter(String keyword, String name, Long id, Pageable pageable);
+
+    /**
+     * 指定位置より前の商品情報検索クエリ
+     *
+     * @param keyword 検索キーワード
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの降順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + KEYWORD_CONDITION
+            + "AND (p.name < ?2 OR (p.name = ?2 AND p.id < ?3)) "
+            + "ORDER BY p.name DESC, p.id DESC")
+    public List<ProductListItem> searchPageBefore(String keyword, String name, Long id, Pageable pageable);
+
+    /**
+     * 絞り込み条件付きの商品一覧の先頭ページ取得クエリ
+     *
+     * @param keyword 検索キーワード（nullの場合は絞り込まない）
+     * @param anyBrand true:ブランドで絞り込まない
+     * @param brandIds 絞り込むブランドID
+     * @param anyCategory true:カテゴリーで絞り込まない
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + FILTER_CONDITION
+            + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> filterFirstPage(@Param("keyword") String keyword,
+            @Param("anyBrand") boolean anyBrand, @Param("brandIds") Collection<Long> brandIds,
+            @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Long> categoryIds,
+            Pageable pageable);
+
+    /**
+     * 絞り込み条件付きの指定位置より後ろの商品一覧取得クエリ
+     *
+     * @param keyword 検索キーワード（nullの場合は絞り込まない）
+     * @param anyBrand true:ブランドで絞り込まない
+     * @param brandIds 絞り込むブランドID
+     * @param anyCategory true:カテゴリーで絞り込まない
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの昇順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + FILTER_CONDITION
+            + "AND (p.name > :name OR (p.name = :name AND p.id > :id)) "
+            + "ORDER BY p.name ASC, p.id ASC")
+    public List<ProductListItem> filterPageAfter(@Param("keyword") String keyword,
+            @Param("anyBrand") boolean anyBrand, @Param("brandIds") Collection<Long> brandIds,
+            @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Long> categoryIds,
+            @Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 絞り込み条件付きの指定位置より前の商品一覧取得クエリ
+     *
+     * @param keyword 検索キーワード（nullの場合は絞り込まない）
+     * @param anyBrand true:ブランドで絞り込まない
+     * @param brandIds 絞り込むブランドID
+     * @param anyCategory true:カテゴリーで絞り込まない
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param name 基準となる商品名
+     * @param id 基準となる商品ID
+     * @param pageable 取得件数
+     * @return 商品一覧の表示項目のリスト（商品名, 商品IDの降順）
+     */
+    @Query(SELECT_LIST_ITEM + "WHERE " + FILTER_CONDITION
+            + "AND (p.name < :name OR (p.name = :name AND p.id < :id)) "
+            + "ORDER BY p.name DESC, p.id DESC")
+    public List<ProductListItem> filterPageBefore(@Param("keyword") String keyword,
+            @Param("anyBrand") boolean anyBrand, @Param("brandIds") Collection<Long> brandIds,
+            @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Long> categoryIds,
+            @Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * ブランド毎の商品件数の集計クエリ
+     *
+     * @param keyword 検索キーワード（nullの場合は絞り込まない）
+     * @param anyBrand true:ブランドで絞り込まない
+     * @param brandIds 絞り込むブランドID
+     * @param anyCategory true:カテゴリーで絞り込まない
+     * @param categoryIds 絞り込むカテゴリーID
+     * @return ブランドIDと件数の組のリスト
+     */
+    @Query("SELECT b.id, COUNT(p) FROM Product p JOIN p.brand b LEFT JOIN p.category c "
+            + "WHERE " + FILTER_CONDITION + "GROUP BY b.id")
+    public List<Object[]> countByBrand(@Param("keyword") String keyword,
+            @Param("anyBrand") boolean anyBrand, @Param("brandIds") Collection<Long> brandIds,
+            @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Long> categoryIds);
+
+    /**
+     * カテゴリー毎の商品件数の集計クエリ
+     *
+     * @param keyword 検索キーワード（nullの場合は絞り込まない）
+     * @param anyBrand true:ブランドで絞り込まない
+     * @param brandIds 絞り込むブランドID
+     * @param anyCategory true:カテゴリーで絞り込まない
+     * @param categoryIds 絞り込むカテゴリーID
+     * @return カテゴリーIDと件数の組のリスト
+     */
+    @Query("SELECT c.id, COUNT(p) FROM Product p LEFT JOIN p.brand b JOIN p.category c "
+            + "WHERE " + FILTER_CONDITION + "GROUP BY c.id")
+    public List<Object[]> countByCategory(@Param("keyword") String keyword,
+            @Param("anyBrand") boolean anyBrand, @Param("brandIds") Collection<Long> brandIds,
+            @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Long> categoryIds);
+
 }
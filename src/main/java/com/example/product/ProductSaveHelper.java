@@ -1,31 +1,101 @@
 package com.example.product;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.example.FileUploadUtil;
+import com.example.MultipartStreamReader;
+import com.example.UploadSizeExceededException;
 import com.example.entity.Product;
+import com.example.entity.ProductImagePaths;
 
 @Service
 public class ProductSaveHelper {
 
+    private final ProductImageStore productImageStore;
+
+    private final ProductImageResizer productImageResizer;
+
+    /** アップロードする画像の最大サイズ */
+    private final long maxFileSize;
+
+    /** アップロードのリクエストの最大サイズ */
+    private final long maxRequestSize;
+
+    @Autowired
+    public ProductSaveHelper(ProductImageStore productImageStore, ProductImageResizer productImageResizer,
+            @Value("${slshop.upload.max-file-size:10MB}") DataSize maxFileSize,
+            @Value("${slshop.upload.max-request-size:20MB}") DataSize maxRequestSize) {
+        this.productImageStore = productImageStore;
+        this.productImageResizer = productImageResizer;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    /**
+     * リクエストの本文から商品画像を読み込みながら保存する
+     *
+     * コンテナによるマルチパートの展開（メモリ・一時ファイル）を経由せず、保存先へ直接書き込む
+     *
+     * @param request 商品画像（項目名file）を含むmultipart/form-dataのリクエスト
+     * @return 画像のファイル名
+     * @throws UploadSizeExceededException 最大サイズを超えた場合
+     * @throws IOException
+     */
+    public String uploadImage(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxRequestSize) {
+            // 本文を読む前に拒否する
+            throw new UploadSizeExceededException(maxRequestSize);
+        }
+        String boundary = MultipartStreamReader.boundary(request.getContentType());
+        if (boundary == null) {
+            throw new IllegalArgumentException("Not a multipart request");
+        }
+        MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, maxRequestSize);
+        MultipartStreamReader.Part part;
+        while ((part = reader.nextPart()) != null) {
+            if ("file".equals(part.getName()) && part.getFileName() != null && !part.getFileName().isEmpty()) {
+                String fileName = productImageStore.store(part.getInputStream(), part.getFileName(), maxFileSize);
+                productImageResizer.submit(productImageStore.resolve(fileName));
+                return fileName;
+            }
+        }
+        throw new IllegalArgumentException("No image in request");
+    }
+
     public void saveUploadedImages(MultipartFile mainImageMultipart, Product savedProduct) throws IOException {
         if (!mainImageMultipart.isEmpty()) {
-            String fileName = StringUtils.cleanPath(mainImageMultipart.getOriginalFilename());
-            String uploadDir = "product-images/" + savedProduct.getId();
-
-            FileUploadUtil.cleanDir(uploadDir);
-            FileUploadUtil.saveFile(uploadDir, fileName, mainImageMultipart);
+            // 縮小版の作成はバックグラウンドで行う（作成済みの場合は作成しない）
+            productImageResizer.submit(productImageStore.resolve(savedProduct.getImageFileName()));
         }
     }
 
-    public void setMainImageName(MultipartFile mainImageMultipart, Product product) {
+    public void setMainImageName(MultipartFile mainImageMultipart, Product product) throws IOException {
         if (!mainImageMultipart.isEmpty()) {
-            String fileName = StringUtils.cleanPath(mainImageMultipart.getOriginalFilename());
+            // 内容のハッシュ値をファイル名として保存し、同じ内容の画像は1つだけ保存する
+            String fileName = productImageStore.store(mainImageMultipart);
             product.setImage(fileName);
         }
     }
+
+    /**
+     * アップロード済みの商品画像のファイル名を商品情報に格納する
+     *
+     * @param imageFileName アップロード済みの商品画像のファイル名
+     * @param product 商品情報
+     */
+    public void setUploadedImageName(String imageFileName, Product product) {
+        // 保存先に存在する画像のみ（任意のファイル名を指定させない）
+        if (ProductImagePaths.blobDir(imageFileName) != null
+                && Files.isRegularFile(productImageStore.resolve(imageFileName))) {
+            product.setImage(imageFileName);
+        }
+    }
 }
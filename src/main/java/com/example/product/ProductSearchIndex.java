@@ -0,0 +1,674 @@
+package com.example.product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+
+/**
+ * 商品検索用の転置インデックス
+ *
+ * 商品名・商品説明を文字バイグラムに分割してメモリ上に保持する。
+ * 形態素解析を行わないため、日本語の文章もそのまま部分一致検索できる。
+ * ブランド名・カテゴリー名は件数が少ないため、ID毎の名称と商品IDの対応で保持する。
+ *
+ * バイグラム毎の商品IDは昇順のint配列で保持し、Long型のボクシングを行わずに二分探索で積集合を求める。
+ * ブランド・カテゴリー毎の商品IDはビットマップ（商品IDをビット位置とするBitSet）で保持し、
+ * 絞り込みと件数の集計をビット演算で行う。
+ */
+@Component
+public class ProductSearchIndex {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    /** 表示順（商品名, 商品ID）の比較 */
+    private static final Comparator<Entry> DISPLAY_ORDER =
+            Comparator.comparing((Entry e) -> e.name).thenComparing(e -> e.id);
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** バイグラムに紐づく商品IDの一覧 */
+    private final Map<String, Posting> postings = new HashMap<>();
+
+    /** 商品IDに紐づく索引情報 */
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /** ブランドIDに紐づく正規化済みブランド名 */
+    private final Map<Long, String> brandNames = new HashMap<>();
+
+    /** カテゴリーIDに紐づく正規化済みカテゴリー名 */
+    private final Map<Long, String> categoryNames = new HashMap<>();
+
+    /** 全商品IDのビットマップ */
+    private final BitSet allProducts = new BitSet();
+
+    /** ブランドIDに紐づく商品IDのビットマップ */
+    private final Map<Long, BitSet> productsByBrand = new HashMap<>();
+
+    /** カテゴリーIDに紐づく商品IDのビットマップ */
+    private final Map<Long, BitSet> productsByCategory = new HashMap<>();
+
+    /** インデックス構築済みかどうか */
+    private volatile boolean ready;
+
+    /** 再構築中に行われた登録・削除（再構築後に再適用する。再構築中以外はnull） */
+    private List<Runnable> pendingWrites;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * 起動時に全商品情報からインデックスを構築する
+     *
+     * 全件の読み込み中もリクエストを受け付けるため、読み込み開始後の登録・削除を記録しておき、
+     * 構築後に再適用する（読み込み結果に含まれていても、同じ内容で置き換えるだけとなる）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            List<Product> products = productRepository.findAll();
+            // 商品IDの昇順で登録し、バイグラム毎の商品IDを末尾への追加のみで構築する
+            products.sort(Comparator.comparing(Product::getId));
+
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                entries.clear();
+                brandNames.clear();
+                categoryNames.clear();
+                allProducts.clear();
+                productsByBrand.clear();
+                productsByCategory.clear();
+                for (Product product : products) {
+                    add(product);
+                }
+                for (Runnable write : pendingWrites) {
+                    write.run();
+                }
+                for (Posting posting : postings.values()) {
+                    posting.trim();
+                }
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            LOGGER.info("Product search index built: " + products.size() + " products, "
+                    + postings.size() + " grams in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * インデックスが利用可能かどうか
+     *
+     * 構築前は呼び出し元でDBから取得すること
+     *
+     * @return true:利用可能 false:構築前
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 商品情報をインデックスに登録する（登録済みの場合は置き換える）
+     *
+     * @param product 保存した商品情報
+     */
+    public void index(Product product) {
+        write(() -> {
+            remove(product.getId());
+            add(product);
+        });
+    }
+
+    /**
+     * 商品情報をインデックスから削除する
+     *
+     * @param id 商品ID
+     */
+    public void delete(Long id) {
+        write(() -> remove(id));
+    }
+
+    /**
+     * ブランド名の変更をインデックスに反映する
+     *
+     * @param brand 保存したブランド情報
+     */
+    public void updateBrand(Brand brand) {
+        write(() -> brandNames.put(brand.getId(), normalize(brand.getName())));
+    }
+
+    /**
+     * カテゴリー名の変更をインデックスに反映する
+     *
+     * @param category 保存したカテゴリー情報
+     */
+    public void updateCategory(Category category) {
+        write(() -> categoryNames.put(category.getId(), normalize(category.getName())));
+    }
+
+    /**
+     * 書き込みロックを取得して変更を反映する
+     *
+     * @param write 変更処理
+     */
+    private void write(Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            // 再構築中の場合は、構築後に再適用するため記録する
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * キーワードに一致する商品IDを表示順（商品名, 商品ID）で取得する
+     *
+     * 商品名・商品説明・ブランド名・カテゴリー名のいずれかにキーワードを含む商品が対象
+     *
+     * @param keyword 検索キーワード
+     * @return 商品IDのリスト
+     */
+    public List<Long> search(String keyword) {
+        lock.readLock().lock();
+        try {
+            List<Entry> hits = match(normalize(keyword));
+            hits.sort(DISPLAY_ORDER);
+            return toIds(hits, hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * キーワード・ブランド・カテゴリーで絞り込んだ商品IDを1ページ分取得する
+     *
+     * 同じ種類の条件はいずれかに一致（OR）、異なる種類の条件は全てに一致（AND）するものが対象
+     *
+     * @param keyword 検索キーワード（nullまたは空の場合は絞り込まない）
+     * @param brandIds ブランドID（nullまたは空の場合は絞り込まない）
+     * @param categoryIds カテゴリーID（nullまたは空の場合は絞り込まない）
+     * @param after このカーソルより後ろを取得する（表示順）
+     * @param before このカーソルより前を取得する（表示順の逆順）
+     * @param limit 取得件数
+     * @return 商品IDのリスト
+     */
+    public List<Long> searchPage(String keyword, Collection<Long> brandIds, Collection<Long> categoryIds,
+            ProductCursor after, ProductCursor before, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = matchKeyword(keyword);
+            and(hits, union(productsByBrand, brandIds));
+            and(hits, union(productsByCategory, categoryIds));
+
+            if (before != null) {
+                Entry pivot = new Entry(before.getId(), before.getName(), null, null, null);
+                return top(hits, DISPLAY_ORDER.reversed(), e -> DISPLAY_ORDER.compare(e, pivot) < 0, limit);
+            }
+            if (after != null) {
+                Entry pivot = new Entry(after.getId(), after.getName(), null, null, null);
+                return top(hits, DISPLAY_ORDER, e -> DISPLAY_ORDER.compare(e, pivot) > 0, limit);
+            }
+            return top(hits, DISPLAY_ORDER, e -> true, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ブランド・カテゴリー毎の件数を集計する
+     *
+     * ブランド毎の件数はキーワードとカテゴリーの条件で、カテゴリー毎の件数はキーワードとブランドの条件で絞り込んだ件数とする
+     * （選択中の条件と同じ種類の他の選択肢を選んだ場合の件数を表示するため）
+     *
+     * @param keyword 検索キーワード（nullまたは空の場合は絞り込まない）
+     * @param brandIds 選択中のブランドID
+     * @param categoryIds 選択中のカテゴリーID
+     * @return ブランド・カテゴリー毎の件数
+     */
+    public ProductFacets facets(String keyword, Collection<Long> brandIds, Collection<Long> categoryIds) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = matchKeyword(keyword);
+
+            BitSet brandBase = (BitSet) hits.clone();
+            and(brandBase, union(productsByCategory, categoryIds));
+            BitSet categoryBase = hits;
+            and(categoryBase, union(productsByBrand, brandIds));
+
+            return new ProductFacets(count(productsByBrand, brandBase), count(productsByCategory, categoryBase));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 正規化済みキーワードに一致する索引情報を取得する（読み取りロック取得済みで呼び出すこと）
+     *
+     * @param query 正規化済みキーワード
+     * @return 索引情報のリスト
+     */
+    private List<Entry> match(String query) {
+        BitSet ids = matchBits(query);
+        List<Entry> hits = new ArrayList<>(ids.cardinality());
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            hits.add(entries.get((long) i));
+        }
+        return hits;
+    }
+
+    /**
+     * キーワードに一致する商品IDのビットマップを取得する（読み取りロック取得済みで呼び出すこと）
+     *
+     * @param keyword 検索キーワード（nullまたは空の場合は全商品）
+     * @return 商品IDのビットマップ（呼び出し元で変更してよい）
+     */
+    private BitSet matchKeyword(String keyword) {
+        String query = normalize(keyword).trim();
+        if (query.isEmpty()) {
+            return (BitSet) allProducts.clone();
+        }
+        return matchBits(query);
+    }
+
+    /**
+     * 正規化済みキーワードに一致する商品IDのビットマップを取得する（読み取りロック取得済みで呼び出すこと）
+     *
+     * @param query 正規化済みキーワード
+     * @return 商品IDのビットマップ
+     */
+    private BitSet matchBits(String query) {
+        BitSet ids = new BitSet();
+
+        if (query.length() < 2) {
+            // 1文字の場合はバイグラムが作れないため、保持している文字列を走査する
+            for (Entry entry : entries.values()) {
+                if (entry.text.contains(query)) {
+                    ids.set(bit(entry.id));
+                }
+            }
+        } else {
+            // 全バイグラムの出現商品の積集合を候補とし、部分一致を確認する
+            BitSet candidates = intersect(grams(query));
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (entries.get((long) i).text.contains(query)) {
+                    ids.set(i);
+                }
+            }
+        }
+
+        // ブランド名・カテゴリー名に一致する商品を追加する
+        collectByName(query, brandNames, productsByBrand, ids);
+        collectByName(query, categoryNames, productsByCategory, ids);
+        return ids;
+    }
+
+    /**
+     * 全バイグラムの出現商品の積集合を求める
+     *
+     * @param grams バイグラムの集合
+     * @return 商品IDのビットマップ
+     */
+    private BitSet intersect(Set<String> grams) {
+        List<Posting> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                return new BitSet();
+            }
+            lists.add(posting);
+        }
+        // 件数の最も少ない一覧の商品IDを、他の一覧から二分探索する
+        lists.sort(Comparator.comparingInt(Posting::size));
+
+        BitSet result = new BitSet();
+        Posting smallest = lists.get(0);
+        candidates:
+        for (int i = 0; i < smallest.size(); i++) {
+            int id = smallest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(id)) {
+                    continue candidates;
+                }
+            }
+            result.set(id);
+        }
+        return result;
+    }
+
+    /**
+     * 名称にキーワードを含むブランド・カテゴリーの商品IDを追加する
+     */
+    private void collectByName(String query, Map<Long, String> names, Map<Long, BitSet> products, BitSet ids) {
+        for (Map.Entry<Long, String> name : names.entrySet()) {
+            if (name.getValue().contains(query)) {
+                BitSet productIds = products.get(name.getKey());
+                if (productIds != null) {
+                    ids.or(productIds);
+                }
+            }
+        }
+    }
+
+    /**
+     * 選択したブランド・カテゴリーの商品IDの和集合を求める
+     *
+     * @param products ブランド・カテゴリー毎の商品IDのビットマップ
+     * @param keys 選択したブランド・カテゴリーのID
+     * @return 商品IDのビットマップ（選択が無い場合はnull）
+     */
+    private static BitSet union(Map<Long, BitSet> products, Collection<Long> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (Long key : keys) {
+            BitSet productIds = products.get(key);
+            if (productIds != null) {
+                result.or(productIds);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 絞り込み条件との積集合を求める
+     *
+     * @param ids 絞り込む商品IDのビットマップ
+     * @param filter 絞り込み条件（nullの場合は絞り込まない）
+     */
+    private static void and(BitSet ids, BitSet filter) {
+        if (filter != null) {
+            ids.and(filter);
+        }
+    }
+
+    /**
+     * ブランド・カテゴリー毎に、対象の商品IDに含まれる件数を数える
+     *
+     * @param products ブランド・カテゴリー毎の商品IDのビットマップ
+     * @param base 対象の商品IDのビットマップ
+     * @return ブランド・カテゴリーのIDに紐づく件数（0件のものは含まない）
+     */
+    private static Map<Long, Integer> count(Map<Long, BitSet> products, BitSet base) {
+        Map<Long, Integer> counts = new HashMap<>();
+        BitSet work = new BitSet();
+        for (Map.Entry<Long, BitSet> entry : products.entrySet()) {
+            work.clear();
+            work.or(entry.getValue());
+            work.and(base);
+            int count = work.cardinality();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 条件に一致する商品IDを表示順に先頭から取得する
+     *
+     * 全件を並べ替えず、取得件数分のみをヒープで保持する
+     *
+     * @param ids 対象の商品IDのビットマップ
+     * @param order 表示順
+     * @param accept カーソルの条件
+     * @param limit 取得件数
+     * @return 商品IDのリスト
+     */
+    private List<Long> top(BitSet ids, Comparator<Entry> order, Predicate<Entry> accept, int limit) {
+        // 先頭が表示順で最も後ろとなるヒープ
+        PriorityQueue<Entry> heap = new PriorityQueue<>(order.reversed());
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            Entry entry = entries.get((long) i);
+            if (entry == null || !accept.test(entry)) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.offer(entry);
+            } else if (order.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(entry);
+            }
+        }
+        List<Entry> hits = new ArrayList<>(heap);
+        hits.sort(order);
+        return toIds(hits, limit);
+    }
+
+    /**
+     * 商品情報を登録する（書き込みロック取得済みで呼び出すこと）
+     */
+    private void add(Product product) {
+        String text = normalize(product.getName()) + "\n" + normalize(product.getDescription());
+        Long brandId = product.getBrand() != null ? product.getBrand().getId() : null;
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        Entry entry = new Entry(product.getId(), product.getName(), text, brandId, categoryId);
+        entries.put(entry.id, entry);
+        allProducts.set(bit(entry.id));
+
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, k -> new Posting()).add(bit(entry.id));
+        }
+        if (brandId != null) {
+            if (product.getBrand().getName() != null) {
+                brandNames.put(brandId, normalize(product.getBrand().getName()));
+            }
+            productsByBrand.computeIfAbsent(brandId, k -> new BitSet()).set(bit(entry.id));
+        }
+        if (categoryId != null) {
+            if (product.getCategory().getName() != null) {
+                categoryNames.put(categoryId, normalize(product.getCategory().getName()));
+            }
+            productsByCategory.computeIfAbsent(categoryId, k -> new BitSet()).set(bit(entry.id));
+        }
+    }
+
+    /**
+     * 商品情報を削除する（書き込みロック取得済みで呼び出すこと）
+     */
+    private void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        allProducts.clear(bit(id));
+        for (String gram : grams(entry.text)) {
+            Posting posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(bit(id));
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        if (entry.brandId != null) {
+            BitSet productIds = productsByBrand.get(entry.brandId);
+            if (productIds != null) {
+                productIds.clear(bit(id));
+            }
+        }
+        if (entry.categoryId != null) {
+            BitSet productIds = productsByCategory.get(entry.categoryId);
+            if (productIds != null) {
+                productIds.clear(bit(id));
+            }
+        }
+    }
+
+    /**
+     * 文字列を文字バイグラムに分割する
+     *
+     * @param text 正規化済みの文字列
+     * @return バイグラムの集合
+     */
+    static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 2 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * 検索用に文字列を正規化する（全角英数字・半角カナの統一、英字の小文字化）
+     *
+     * @param text 文字列
+     * @return 正規化した文字列
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+    }
+
+    /**
+     * 商品IDをビット位置に変換する
+     *
+     * @param id 商品ID
+     * @return ビット位置
+     */
+    private static int bit(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    private static List<Long> toIds(List<Entry> hits, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(hits.size(), limit));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            ids.add(hits.get(i).id);
+        }
+        return ids;
+    }
+
+    /**
+     * 商品1件分の索引情報
+     */
+    private static final class Entry {
+
+        private final Long id;
+
+        private final String name;
+
+        private final String text;
+
+        private final Long brandId;
+
+        private final Long categoryId;
+
+        private Entry(Long id, String name, String text, Long brandId, Long categoryId) {
+            this.id = id;
+            this.name = name;
+            this.text = text;
+            this.brandId = brandId;
+            this.categoryId = categoryId;
+        }
+    }
+
+    /**
+     * バイグラム1件分の商品IDの一覧（昇順のint配列）
+     */
+    private static final class Posting {
+
+        private int[] ids = new int[4];
+
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private int get(int index) {
+            return ids[index];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void add(int id) {
+            // 構築時は商品IDの昇順で追加されるため、末尾への追加は探索しない
+            int index = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                index = -index - 1;
+            } else if (index < size) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        private void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+
+        /**
+         * 余分な領域を解放する
+         */
+        private void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+
+}
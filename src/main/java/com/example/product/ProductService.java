@@ -1,22 +1,62 @@
 package com.example.product;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.Product;
 
 
 @Service
 public class ProductService {
 
+    /** 1ページに表示できる最大件数 */
+    static final int MAX_PAGE_SIZE = 100;
+
+    /** 絞り込まない場合にIN句へ渡すダミーのID */
+    private static final List<Long> NO_IDS = Collections.singletonList(-1L);
+
     private final ProductRepository productRepository;
 
+    private final ProductSearchIndex productSearchIndex;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityCache entityCache;
+
+    private final ProductImageStore productImageStore;
+
+    /** 1ページの表示件数（既定値） */
+    @Value("${slshop.product.page-size:20}")
+    private int defaultPageSize = 20;
+
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductSearchIndex productSearchIndex,
+            SearchResultCache searchResultCache, EntityCache entityCache, ProductImageStore productImageStore) {
         this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.searchResultCache = searchResultCache;
+        this.entityCache = entityCache;
+        this.productImageStore = productImageStore;
     }
 
     /**
@@ -35,9 +75,14 @@ public class ProductService {
      * @return 商品情報のリスト
      */
     public List<Product> listAll(String keyword) {
+        String normalized = SearchResultCache.normalize(keyword);
         // 検索キーワードがあった場合
-        if (keyword != null && !keyword.isEmpty()) {
-            return productRepository.search(keyword);
+        if (normalized != null && !normalized.isEmpty()) {
+            // インデックス構築済みの場合は、一致した商品IDの商品情報のみ取得する
+            if (productSearchIndex.isReady()) {
+                return hydrate(productSearchIndex.search(normalized));
+            }
+            return productRepository.search(normalized);
         }
         // それ以外の場合
         else {
@@ -45,6 +90,100 @@ public class ProductService {
         }
     }
 
+    /**
+     * 商品一覧のページ取得処理
+     *
+     * OFFSETを使わず、直前ページの末尾（商品名, 商品ID）を起点に取得するため、
+     * 何ページ目であっても取得コストは一定となる
+     *
+     * @param keyword 検索キーワード
+     * @param after このカーソルより後ろのページを取得する
+     * @param before このカーソルより前のページを取得する
+     * @param size 1ページの表示件数（nullの場合は既定値）
+     * @return 商品一覧の1ページ分の情報
+     */
+    public ProductPage<ProductListItem> listPage(String keyword, ProductCursor after, ProductCursor before,
+            Integer size) {
+        return listPage(keyword, null, null, after, before, size);
+    }
+
+    /**
+     * ブランド・カテゴリーで絞り込んだ商品一覧のページ取得処理
+     *
+     * @param keyword 検索キーワード
+     * @param brandIds 絞り込むブランドID（いずれかに一致するもの）
+     * @param categoryIds 絞り込むカテゴリーID（いずれかに一致するもの）
+     * @param after このカーソルより後ろのページを取得する
+     * @param before このカーソルより前のページを取得する
+     * @param size 1ページの表示件数（nullの場合は既定値）
+     * @return 商品一覧の1ページ分の情報
+     */
+    public ProductPage<ProductListItem> listPage(String keyword, List<Long> brandIds, List<Long> categoryIds,
+            ProductCursor after, ProductCursor before, Integer size) {
+        int pageSize = resolvePageSize(size);
+        // 前後ページの有無を判定するため、1件多く取得する
+        List<ProductListItem> rows = fetchRows(keyword, brandIds, categoryIds, after, before, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductListItem> content = new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageSize)));
+
+        // 前ページを取得する場合
+        if (before != null) {
+            // 逆順で取得しているため、表示順に並べ替える
+            Collections.reverse(content);
+            return toPage(content, hasMore, true, pageSize);
+        }
+        // 次ページ、または先頭ページを取得する場合
+        return toPage(content, after != null, hasMore, pageSize);
+    }
+
+    /**
+     * ブランド・カテゴリー毎の商品件数の集計処理
+     *
+     * GROUP BYで集計せず、検索用インデックスのビットマップの積集合の件数から求める
+     * （インデックスの構築前はDBで集計する）
+     *
+     * @param keyword 検索キーワード
+     * @param brandIds 選択中のブランドID
+     * @param categoryIds 選択中のカテゴリーID
+     * @return ブランド・カテゴリー毎の商品件数
+     */
+    public ProductFacets facets(String keyword, List<Long> brandIds, List<Long> categoryIds) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.facets(keyword, brandIds, categoryIds);
+        }
+        String pattern = isEmpty(keyword) ? null : keyword;
+        // ブランド毎の件数はカテゴリーの条件のみ、カテゴリー毎の件数はブランドの条件のみで絞り込む
+        return new ProductFacets(
+                toCounts(productRepository.countByBrand(pattern, true, NO_IDS,
+                        isEmpty(categoryIds), orNone(categoryIds))),
+                toCounts(productRepository.countByCategory(pattern, isEmpty(brandIds), orNone(brandIds),
+                        true, NO_IDS)));
+    }
+
+    /**
+     * 全商品情報のCSV出力処理
+     *
+     * DBのカーソルから読み込んだ行を順に書き出すため、件数に関わらずメモリ使用量は一定となる
+     *
+     * @param writer 出力先
+     * @throws IOException
+     */
+    @Transactional(readOnly = true)
+    public void exportCsv(Writer writer) throws IOException {
+        writer.write("ID,商品名,商品説明,金額,長辺,短辺,高さ,重量,ブランド名,カテゴリー名\r\n");
+        try (Stream<ProductExportRow> rows = productRepository.streamAllForExport()) {
+            rows.forEach(row -> {
+                try {
+                    writer.write(toCsvLine(row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * IDに紐づく商品情報取得処理
      *
@@ -53,11 +192,8 @@ public class ProductService {
      * @throws NotFoundException 
      */
     public Product get(Long id) throws NotFoundException {
-        // IDに紐づく商品情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
-        return productRepository.findById(id).get();
+        // IDに紐づく商品情報の取得（キャッシュに無い場合のみDBから取得する）
+        return find(id).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -67,7 +203,43 @@ public class ProductService {
      * @return 保存した商品情報
      */
     public Product save(Product product) {
-        return productRepository.save(product);
+        // 更新の場合は、変更前の画像を取得する
+        String previousImage = product.getId() != null
+                ? find(product.getId()).map(Product::getImageFileName).orElse(null)
+                : null;
+        // 編集画面から画像が送信されなかった場合は、登録済みの画像を維持する
+        if (previousImage != null && product.getImageFileName() == null) {
+            product.setImage(previousImage);
+        }
+        Product savedProduct = productRepository.save(product);
+        // 検索用インデックスに反映する
+        productSearchIndex.index(savedProduct);
+        // 検索結果キャッシュ・商品情報のキャッシュを破棄する
+        searchResultCache.invalidate(Product.class);
+        entityCache.evict(Product.class, savedProduct.getId());
+        // 画像が変わった場合は、変更前の画像の参照を外す
+        if (previousImage != null && !previousImage.equals(savedProduct.getImageFileName())) {
+            productImageStore.release(previousImage);
+        }
+        return savedProduct;
+    }
+
+    /**
+     * 一括登録した商品情報の反映処理
+     *
+     * @param products 一括登録した商品情報のリスト
+     */
+    public void reindex(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        // 検索用インデックスに反映する
+        for (Product product : products) {
+            productSearchIndex.index(product);
+        }
+        // 検索結果キャッシュ・商品情報のキャッシュ（存在しないことを保持したIDを含む）を破棄する
+        searchResultCache.invalidate(Product.class);
+        entityCache.evictAll(Product.class);
     }
 
     /**
@@ -121,24 +293,239 @@ public class ProductService {
      */
     public void delete(Long id) throws NotFoundException {
         // IDに紐づく商品情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
+        Product product = find(id).orElseThrow(NotFoundException::new);
         productRepository.deleteById(id);
+        // 検索用インデックスから削除する
+        productSearchIndex.delete(id);
+        // 検索結果キャッシュ・商品情報のキャッシュを破棄する
+        searchResultCache.invalidate(Product.class);
+        entityCache.evict(Product.class, id);
+        // 画像の参照を外す
+        productImageStore.release(product.getImageFileName());
     }
 
     /**
-     * 商品情報の存在チェック
+     * 1ページ分の商品一覧の表示項目の取得
+     *
+     * 検索キーワードがある場合は、同じ条件・同じページの取得結果を検索結果キャッシュから返す
      *
-     * @param name 確認したい商品情報のID
-     * @return true:存在する false:存在しない
+     * @param keyword 検索キーワード
+     * @param brandIds 絞り込むブランドID
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param after このカーソルより後ろを取得する（表示順）
+     * @param before このカーソルより前を取得する（表示順の逆順）
+     * @param limit 取得件数
+     * @return 商品一覧の表示項目のリスト
      */
-    private boolean exists(Long id) {
-        Long countById = productRepository.countById(id);
-        if (countById == null || countById == 0L) {
-            return false;
+    private List<ProductListItem> fetchRows(String keyword, List<Long> brandIds, List<Long> categoryIds,
+            ProductCursor after, ProductCursor before, int limit) {
+        String normalized = SearchResultCache.normalize(keyword);
+        if (isEmpty(normalized)) {
+            return loadRows(null, brandIds, categoryIds, after, before, limit);
         }
-        return true;
+        String key = normalized + '\n' + brandIds + '\n' + categoryIds + '\n'
+                + (after != null ? after.encode() : "") + '\n'
+                + (before != null ? before.encode() : "") + '\n' + limit;
+        return searchResultCache.get(Product.class, key,
+                () -> loadRows(normalized, brandIds, categoryIds, after, before, limit));
+    }
+
+    /**
+     * 1ページ分の商品一覧の表示項目をインデックスまたはDBから取得する
+     *
+     * @param keyword 正規化済みの検索キーワード
+     * @param brandIds 絞り込むブランドID
+     * @param categoryIds 絞り込むカテゴリーID
+     * @param after このカーソルより後ろを取得する（表示順）
+     * @param before このカーソルより前を取得する（表示順の逆順）
+     * @param limit 取得件数
+     * @return 商品一覧の表示項目のリスト
+     */
+    private List<ProductListItem> loadRows(String keyword, List<Long> brandIds, List<Long> categoryIds,
+            ProductCursor after, ProductCursor before, int limit) {
+        boolean hasKeyword = !isEmpty(keyword);
+        boolean hasFilter = !isEmpty(brandIds) || !isEmpty(categoryIds);
+
+        // 絞り込み条件または検索キーワードがあり、インデックス構築済みの場合はインデックスから取得する
+        if ((hasFilter || hasKeyword) && productSearchIndex.isReady()) {
+            List<Long> ids = productSearchIndex.searchPage(keyword, brandIds, categoryIds, after, before, limit);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return sortByIds(ids, productRepository.findListItemsByIdIn(ids), ProductListItem::getId);
+        }
+
+        Pageable pageable = PageRequest.of(0, limit);
+        // インデックスの構築前にブランド・カテゴリーで絞り込む場合は、DBで絞り込む
+        if (hasFilter) {
+            String pattern = hasKeyword ? keyword : null;
+            if (before != null) {
+                return productRepository.filterPageBefore(pattern, isEmpty(brandIds), orNone(brandIds),
+                        isEmpty(categoryIds), orNone(categoryIds), before.getName(), before.getId(), pageable);
+            }
+            if (after != null) {
+                return productRepository.filterPageAfter(pattern, isEmpty(brandIds), orNone(brandIds),
+                        isEmpty(categoryIds), orNone(categoryIds), after.getName(), after.getId(), pageable);
+            }
+            return productRepository.filterFirstPage(pattern, isEmpty(brandIds), orNone(brandIds),
+                    isEmpty(categoryIds), orNone(categoryIds), pageable);
+        }
+        if (before != null) {
+            return hasKeyword
+                    ? productRepository.searchPageBefore(keyword, before.getName(), before.getId(), pageable)
+                    : productRepository.findPageBefore(before.getName(), before.getId(), pageable);
+        }
+        if (after != null) {
+            return hasKeyword
+                    ? productRepository.searchPageAfter(keyword, after.getName(), after.getId(), pageable)
+                    : productRepository.findPageAfter(after.getName(), after.getId(), pageable);
+        }
+        return hasKeyword
+                ? productRepository.searchFirstPage(keyword, pageable)
+                : productRepository.findFirstPage(pageable);
+    }
+
+    /**
+     * 商品IDのリストから商品情報を取得する
+     *
+     * @param ids 商品IDのリスト
+     * @return 商品情報のリスト（商品IDのリストと同じ順序）
+     */
+    private List<Product> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return sortByIds(ids, productRepository.findAllById(ids), Product::getId);
+    }
+
+    /**
+     * 取得結果を商品IDのリストの順序に並べ替える
+     *
+     * @param ids 商品IDのリスト
+     * @param rows 取得結果（順不同）
+     * @param idOf 取得結果から商品IDを取り出す処理
+     * @return 並べ替えた取得結果（削除済みの商品は含まない）
+     */
+    private <T> List<T> sortByIds(List<Long> ids, Iterable<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> rowsById = new HashMap<>();
+        for (T row : rows) {
+            rowsById.put(idOf.apply(row), row);
+        }
+        List<T> sorted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = rowsById.get(id);
+            if (row != null) {
+                sorted.add(row);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * 集計結果をIDに紐づく件数に変換する
+     *
+     * @param rows IDと件数の組のリスト
+     * @return IDに紐づく件数
+     */
+    private static Map<Long, Integer> toCounts(List<Object[]> rows) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static boolean isEmpty(Collection<Long> ids) {
+        return ids == null || ids.isEmpty();
+    }
+
+    private static Collection<Long> orNone(Collection<Long> ids) {
+        return isEmpty(ids) ? NO_IDS : ids;
+    }
+
+    /**
+     * 商品情報エクスポートの1行をCSV形式に変換する
+     *
+     * @param row 商品情報エクスポートの1行
+     * @return CSV形式の1行（改行コードを含む）
+     */
+    private String toCsvLine(ProductExportRow row) {
+        return new StringBuilder(128)
+                .append(row.getId()).append(',')
+                .append(escapeCsv(row.getName())).append(',')
+                .append(escapeCsv(row.getDescription())).append(',')
+                .append(row.getPrice()).append(',')
+                .append(row.getLength()).append(',')
+                .append(row.getWidth()).append(',')
+                .append(row.getHeight()).append(',')
+                .append(row.getWeight()).append(',')
+                .append(escapeCsv(row.getBrandName())).append(',')
+                .append(escapeCsv(row.getCategoryName())).append("\r\n")
+                .toString();
+    }
+
+    /**
+     * CSVの値のエスケープ（区切り文字・引用符・改行を含む場合は引用符で囲む）
+     *
+     * @param value 値
+     * @return エスケープした値
+     */
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * 1ページの表示件数の決定
+     *
+     * @param size 画面から指定された表示件数
+     * @return 1からMAX_PAGE_SIZEまでの表示件数
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 取得結果からページ情報を作成する
+     *
+     * @param content 表示する商品一覧の表示項目のリスト
+     * @param hasPrevious 前ページの有無
+     * @param hasNext 次ページの有無
+     * @param size 1ページの表示件数
+     * @return 商品一覧の1ページ分の情報
+     */
+    private ProductPage<ProductListItem> toPage(List<ProductListItem> content, boolean hasPrevious, boolean hasNext,
+            int size) {
+        if (content.isEmpty()) {
+            return new ProductPage<>(content, null, null, false, false, size);
+        }
+        ProductListItem first = content.get(0);
+        ProductListItem last = content.get(content.size() - 1);
+        return new ProductPage<>(content, new ProductCursor(first.getName(), first.getId()),
+                new ProductCursor(last.getName(), last.getId()), hasPrevious, hasNext, size);
+    }
+
+    /**
+     * IDに紐づく商品情報の取得（存在しないことも含めてキャッシュする）
+     *
+     * @param id 商品ID
+     * @return 商品情報（存在しない場合は空）
+     */
+    private Optional<Product> find(Long id) {
+        return entityCache.get(Product.class, id, productRepository::findById);
     }
 
 }
@@ -0,0 +1,142 @@
+package com.example.security;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ログイン試行の流量制限
+ *
+ * 接続元IPアドレス毎・メールアドレス毎のトークンバケットで試行回数を制限し、
+ * パスワードの照合（BCrypt）の同時実行数をセマフォで制限する。
+ * バケットは次のトークンの補充時刻のみをAtomicLongで保持し、ロックを使わずCASで更新する（GCRA）。
+ */
+@Component
+public class LoginThrottle {
+
+    /** キーに含めるメールアドレスの最大長 */
+    private static final int MAX_EMAIL_LENGTH = 50;
+
+    private final Buckets ipBuckets;
+
+    private final Buckets emailBuckets;
+
+    /** パスワードの照合の同時実行数 */
+    private final Semaphore verifications;
+
+    public LoginThrottle(@Value("${slshop.login-throttle.ip.capacity:20}") int ipCapacity,
+            @Value("${slshop.login-throttle.ip.per-minute:10}") int ipPerMinute,
+            @Value("${slshop.login-throttle.email.capacity:5}") int emailCapacity,
+            @Value("${slshop.login-throttle.email.per-minute:5}") int emailPerMinute,
+            @Value("${slshop.login-throttle.max-keys:100000}") int maxKeys,
+            @Value("${slshop.login-throttle.max-concurrent:0}") int maxConcurrent) {
+        this.ipBuckets = new Buckets(ipCapacity, ipPerMinute, maxKeys);
+        this.emailBuckets = new Buckets(emailCapacity, emailPerMinute, maxKeys);
+        // 未指定の場合はCPUのコア数（照合はCPUを占有するため、それ以上並べても速くならない）
+        this.verifications = new Semaphore(
+                maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * ログイン試行のトークンを取得する
+     *
+     * @param ip 接続元IPアドレス
+     * @param email 入力されたメールアドレス（未入力の場合はnull）
+     * @return 再試行できるまでの秒数（試行できる場合は0）
+     */
+    public long tryAcquire(String ip, String email) {
+        long now = System.nanoTime();
+        long waitNanos = ipBuckets.tryAcquire(ip, now);
+        if (waitNanos == 0 && email != null && !email.isEmpty()) {
+            // メールアドレスの最大長（50文字）を超える部分はキーに含めない
+            String key = email.trim().toLowerCase(Locale.ROOT);
+            waitNanos = emailBuckets.tryAcquire(key.length() > MAX_EMAIL_LENGTH ? key.substring(0, MAX_EMAIL_LENGTH) : key, now);
+        }
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * パスワードの照合を開始する（同時実行数の上限に達している場合は待たずにfalseを返す）
+     *
+     * @return true:開始できる false:上限に達している
+     */
+    public boolean tryStartVerification() {
+        return verifications.tryAcquire();
+    }
+
+    /**
+     * パスワードの照合を終了する
+     */
+    public void endVerification() {
+        verifications.release();
+    }
+
+    /**
+     * トークンが満杯に戻ったバケットを削除する
+     */
+    @Scheduled(fixedDelayString = "${slshop.login-throttle.clean-up-interval-ms:60000}")
+    public void cleanUp() {
+        long now = System.nanoTime();
+        ipBuckets.cleanUp(now);
+        emailBuckets.cleanUp(now);
+    }
+
+    /**
+     * キー毎のトークンバケット
+     */
+    static final class Buckets {
+
+        /** トークン1つの補充間隔（ナノ秒） */
+        private final long interval;
+
+        /** 満杯のトークンを使い切るまでの時間（ナノ秒） */
+        private final long burst;
+
+        /** 保持するキーの上限件数 */
+        private final int maxKeys;
+
+        /** キー毎の、トークンが満杯に戻る時刻 */
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        Buckets(int capacity, int perMinute, int maxKeys) {
+            this.interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.burst = interval * capacity;
+            this.maxKeys = maxKeys;
+        }
+
+        /**
+         * トークンを1つ取得する
+         *
+         * @return 取得できるまでの時間（ナノ秒。取得できた場合は0）
+         */
+        long tryAcquire(String key, long now) {
+            if (buckets.size() >= maxKeys) {
+                cleanUp(now);
+            }
+            AtomicLong full = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = full.get();
+                long next = (current - now < 0 ? now : current) + interval;
+                long over = next - now - burst;
+                if (over > 0) {
+                    return over;
+                }
+                if (full.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void cleanUp(long now) {
+            buckets.values().removeIf(full -> full.get() - now <= 0);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.example.security;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * ログイン処理の流量制限フィルター
+ *
+ * 認証処理（UsernamePasswordAuthenticationFilter）の前に置き、制限を超えた試行はパスワードを照合せず429で拒否する。
+ *
+ * 接続元はgetRemoteAddr()で判定する。リバースプロキシの背後に置く場合は、server.forward-headers-strategy=native
+ * （RemoteIpValve）で信頼するプロキシのX-Forwarded-Forから接続元を復元する前提とする。
+ * 復元しない場合、全ての利用者がプロキシのIPアドレスとして同じ制限を共有する。
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private final LoginThrottle loginThrottle;
+
+    private final RequestMatcher loginRequest;
+
+    private final String usernameParameter;
+
+    public LoginThrottleFilter(LoginThrottle loginThrottle, String loginProcessingUrl, String usernameParameter) {
+        this.loginThrottle = loginThrottle;
+        this.loginRequest = new AntPathRequestMatcher(loginProcessingUrl, "POST");
+        this.usernameParameter = usernameParameter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequest.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long retryAfter = loginThrottle.tryAcquire(request.getRemoteAddr(), request.getParameter(usernameParameter));
+        if (retryAfter > 0) {
+            reject(response, retryAfter);
+            return;
+        }
+        if (!loginThrottle.tryStartVerification()) {
+            reject(response, 1);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            loginThrottle.endVerification();
+        }
+    }
+
+    /**
+     * 429で拒否する（未ログインのためエラー画面へは転送せず、本文を直接返却する）
+     */
+    private static void reject(HttpServletResponse response, long retryAfter) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("ログインの試行回数が上限を超えました。" + retryAfter + "秒後に再度お試しください。");
+    }
+
+}
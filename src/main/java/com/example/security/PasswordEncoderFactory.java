@@ -0,0 +1,39 @@
+package com.example.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * パスワードのハッシュ化方式の作成
+ *
+ * ハッシュ値の先頭に方式（{bcrypt}）を、BCryptのハッシュ値自体にコストを記録するため、
+ * 方式・コストを変更しても登録済みのパスワードは照合でき、ログイン時に新しい方式・コストで再ハッシュ化できる。
+ */
+public final class PasswordEncoderFactory {
+
+    /** 新しくハッシュ化する方式 */
+    static final String ENCODING_ID = "bcrypt";
+
+    private PasswordEncoderFactory() {
+    }
+
+    /**
+     * パスワードのハッシュ化方式を作成する
+     *
+     * @param cost BCryptのコスト
+     * @return パスワードのハッシュ化方式
+     */
+    public static PasswordEncoder create(int cost) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(ENCODING_ID, new BCryptPasswordEncoder(cost));
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(ENCODING_ID, encoders);
+        // 方式の記録が無いハッシュ値（導入前に登録したパスワード）はBCryptとして照合する
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cost));
+        return encoder;
+    }
+
+}
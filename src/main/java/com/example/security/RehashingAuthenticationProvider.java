@@ -0,0 +1,69 @@
+package com.example.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * ログイン時に古い方式・コストのパスワードを再ハッシュ化する認証処理
+ *
+ * DaoAuthenticationProviderの再ハッシュ化はログインのスレッドで行われ、照合に加えてハッシュ化の時間が掛かるため、
+ * 再ハッシュ化はバックグラウンドで行う。キューが溢れた場合は再ハッシュ化せず、次回のログイン時に行う。
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    private final ThreadPoolExecutor executor;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService,
+            UserDetailsPasswordService userDetailsPasswordService, PasswordEncoder passwordEncoder) {
+        // 親クラスには再ハッシュ化の処理を渡さない（ログインのスレッドで再ハッシュ化しない）
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-rehash");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+            UserDetails user) {
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            String presentedPassword = authentication.getCredentials().toString();
+            executor.execute(() -> rehash(user, presentedPassword));
+        }
+        // セッションにはパスワードのハッシュ値を含まない管理者情報を保持する
+        Object sessionPrincipal = principal instanceof SLShopUserDetails
+                ? ((SLShopUserDetails) principal).withoutPassword() : principal;
+        return super.createSuccessAuthentication(sessionPrincipal, authentication, user);
+    }
+
+    private void rehash(UserDetails user, String presentedPassword) {
+        try {
+            userDetailsPasswordService.updatePassword(user, passwordEncoder.encode(presentedPassword));
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not rehash password: " + user.getUsername(), e);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.example.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.example.entity.Role;
+
+/**
+ * ロールのビットマスクと権限の対応
+ *
+ * 起動時にロール情報全件からロール名とビット位置の対応を読み込み（{@link RoleAuthoritiesLoader}）、
+ * ビットマスク毎の権限リストを全ログインで共有する
+ * （同じロールの組み合わせの管理者は同じ権限リストを参照し、権限の確認毎にリストを作成しない）。
+ * ログイン・セッションの復元では対応を参照するのみで変更しない。
+ */
+public final class RoleAuthorities {
+
+    /** 現在の対応（読み込みの度に置き換える） */
+    private static volatile Registry registry = new Registry(Collections.emptyList());
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * ロール情報全件からロール名とビット位置の対応を読み込む
+     *
+     * @param roles ロール情報全件
+     * @throws IllegalStateException IDがビットで表せる範囲外のロールがある場合
+     */
+    public static void load(Collection<Role> roles) {
+        List<RoleAuthority> authorities = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            authorities.add(new RoleAuthority(role.getBit(), role.getName()));
+        }
+        registry = new Registry(authorities);
+    }
+
+    /**
+     * ロール名の権限
+     *
+     * @param roleName ロール名
+     * @return 権限（未登録の場合はnull）
+     */
+    public static RoleAuthority of(String roleName) {
+        return registry.byName.get(roleName);
+    }
+
+    /**
+     * ロール名のビットマスク
+     *
+     * @param roleName ロール名
+     * @return ビットマスク（未登録の場合は0）
+     */
+    public static long maskOf(String roleName) {
+        RoleAuthority authority = of(roleName);
+        return authority != null ? 1L << authority.getBit() : 0L;
+    }
+
+    /**
+     * ビットマスクに対応する権限リスト（変更不可）
+     *
+     * @param roleMask ロールのビットマスク
+     * @return 権限リスト（未登録のビットは含まない）
+     */
+    public static List<GrantedAuthority> authorities(long roleMask) {
+        return registry.authorities(roleMask);
+    }
+
+    /**
+     * 復元した権限に対応する権限リスト（変更不可）
+     *
+     * 全て登録済みの対応と一致する場合は共有の権限リストを、一致しない場合（別のサーバーで作成された
+     * セッションで、ロールが未登録・変更済みの場合）は復元した権限のみのリストを返却する。
+     *
+     * @param roleMask ロールのビットマスク
+     * @param restored 復元した権限（ビット位置の順）
+     * @return 権限リスト
+     */
+    static List<GrantedAuthority> resolve(long roleMask, List<RoleAuthority> restored) {
+        Registry current = registry;
+        for (RoleAuthority authority : restored) {
+            if (!authority.equals(current.byBit[authority.getBit()])) {
+                return Collections.unmodifiableList(new ArrayList<>(restored));
+            }
+        }
+        List<GrantedAuthority> shared = current.authorities(roleMask);
+        return shared.size() == restored.size() ? shared : Collections.unmodifiableList(new ArrayList<>(restored));
+    }
+
+    /**
+     * ある時点のロール名とビット位置の対応
+     */
+    private static final class Registry {
+
+        /** ロール名毎の権限 */
+        private final Map<String, RoleAuthority> byName = new HashMap<>();
+
+        /** ビット位置毎の権限 */
+        private final RoleAuthority[] byBit = new RoleAuthority[Role.MAX_ROLES];
+
+        /** ビットマスク毎の権限リスト */
+        private final Map<Long, List<GrantedAuthority>> authorityLists = new ConcurrentHashMap<>();
+
+        private Registry(List<RoleAuthority> authorities) {
+            for (RoleAuthority authority : authorities) {
+                byName.put(authority.getAuthority(), authority);
+                byBit[authority.getBit()] = authority;
+            }
+        }
+
+        private List<GrantedAuthority> authorities(long roleMask) {
+            return authorityLists.computeIfAbsent(roleMask, mask -> {
+                List<GrantedAuthority> authorities = new ArrayList<>(Long.bitCount(mask));
+                for (long rest = mask; rest != 0; rest &= rest - 1) {
+                    RoleAuthority authority = byBit[Long.numberOfTrailingZeros(rest)];
+                    if (authority != null) {
+                        authorities.add(authority);
+                    }
+                }
+                return Collections.unmodifiableList(authorities);
+            });
+        }
+    }
+
+}
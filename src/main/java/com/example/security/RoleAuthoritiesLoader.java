@@ -0,0 +1,44 @@
+package com.example.security;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.entity.Role;
+import com.example.user.RoleRepository;
+
+/**
+ * ロール名とビット位置の対応の読み込み
+ *
+ * ログインを受け付ける前（Webサーバーの起動前）に読み込むため、ApplicationReadyEventではなく作成時に読み込む。
+ * IDがビットで表せる範囲外のロールがある場合は起動を中止する（ログインの度に判定しない）。
+ */
+@Component
+public class RoleAuthoritiesLoader {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleAuthoritiesLoader.class);
+
+    private final RoleRepository roleRepository;
+
+    @Autowired
+    public RoleAuthoritiesLoader(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * ロール情報全件を読み込む
+     */
+    @PostConstruct
+    public void load() {
+        List<Role> roles = roleRepository.findAll();
+        RoleAuthorities.load(roles);
+        LOGGER.info("Role authorities loaded: " + roles.size() + " roles");
+    }
+
+}
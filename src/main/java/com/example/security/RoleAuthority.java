@@ -0,0 +1,53 @@
+package com.example.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * ロールの権限（ロール名とビット位置）
+ */
+public final class RoleAuthority implements GrantedAuthority {
+    private static final long serialVersionUID = 1L;
+
+    private final int bit;
+
+    private final String authority;
+
+    public RoleAuthority(int bit, String authority) {
+        this.bit = bit;
+        this.authority = authority;
+    }
+
+    /**
+     * ロールのビット位置
+     *
+     * @return ビット位置
+     */
+    public int getBit() {
+        return bit;
+    }
+
+    @Override
+    public String getAuthority() {
+        return authority;
+    }
+
+    @Override
+    public int hashCode() {
+        return authority.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof RoleAuthority))
+            return false;
+        RoleAuthority other = (RoleAuthority) obj;
+        return bit == other.bit && authority.equals(other.authority);
+    }
+
+    @Override
+    public String toString() {
+        return authority;
+    }
+}
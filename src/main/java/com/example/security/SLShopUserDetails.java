@@ -1,46 +1,91 @@
 package com.example.security;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.example.entity.Role;
 import com.example.entity.User;
 
+/**
+ * 認証済みの管理者情報
+ *
+ * 認証用のキャッシュで複数のログインから共有するため、作成時点の値を保持し変更しない。
+ * （CredentialsContainerを実装すると、認証後にパスワードが消去されキャッシュが壊れるため実装しない）
+ * セッションにはエンティティではなく、ID・メールアドレス・管理者名・ロールのビットマスクのみを保持する。
+ * 管理者情報のエンティティが必要な場合は、IDから取得する（UserService#get）。
+ */
 public class SLShopUserDetails implements UserDetails {
-    private static final long serialVersionUID = 1L;
-    private User user;
+    private static final long serialVersionUID = 3L;
 
-    public SLShopUserDetails(User user) {
-        this.user = user;
-    }
+    private final Long id;
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<Role> roles = user.getRoles();
+    private final String email;
+
+    private final String name;
+
+    /** パスワードのハッシュ値（セッションに保持する場合はnull） */
+    private final String password;
+
+    /** ロールのビットマスク */
+    private final long roleMask;
 
-        List<SimpleGrantedAuthority> authories = new ArrayList<>();
+    /** 権限リスト（同じロールの組み合わせの管理者で共有する） */
+    private transient List<GrantedAuthority> authorities;
 
-        for (Role role : roles) {
-            authories.add(new SimpleGrantedAuthority(role.getName()));
+    public SLShopUserDetails(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.name = user.getName();
+        this.password = user.getPassword();
+
+        // 起動後に登録されたロール（対応を読み込んでいないロール）は含めない
+        long mask = 0;
+        for (Role role : user.getRoles()) {
+            mask |= RoleAuthorities.maskOf(role.getName());
         }
+        this.roleMask = mask;
+        this.authorities = RoleAuthorities.authorities(mask);
+    }
+
+    private SLShopUserDetails(SLShopUserDetails source, String password) {
+        this.id = source.id;
+        this.email = source.email;
+        this.name = source.name;
+        this.password = password;
+        this.roleMask = source.roleMask;
+        this.authorities = source.authorities;
+    }
+
+    /**
+     * パスワードのハッシュ値を含まない管理者情報（セッションに保持する）
+     *
+     * @return 管理者情報
+     */
+    public SLShopUserDetails withoutPassword() {
+        return password == null ? this : new SLShopUserDetails(this, null);
+    }
 
-        return authories;
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -63,11 +108,60 @@ public class SLShopUserDetails implements UserDetails {
         return true;
     }
 
-    public User getUser() {
-        return this.user;
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * 管理者名（画面表示用）
+     *
+     * @return 管理者名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * ロールのビットマスク
+     *
+     * @return ロールのビットマスク
+     */
+    public long getRoleMask() {
+        return roleMask;
     }
 
     public boolean hasRole(String roleName) {
-        return user.hasRole(roleName);
+        return (roleMask & RoleAuthorities.maskOf(roleName)) != 0;
+    }
+
+    /**
+     * 権限の件数と、権限毎のビット位置・ロール名を書き出す（権限リストの代わりに書き出し、読み込み時に共有の権限リストを参照する）
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            RoleAuthority roleAuthority = (RoleAuthority) authority;
+            out.writeInt(roleAuthority.getBit());
+            out.writeUTF(roleAuthority.getAuthority());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        if (count < 0 || count > Role.MAX_ROLES) {
+            throw new InvalidObjectException("Invalid authority count: " + count);
+        }
+        List<RoleAuthority> restored = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int bit = in.readInt();
+            if (bit < 0 || bit >= Role.MAX_ROLES || (roleMask & (1L << bit)) == 0) {
+                throw new InvalidObjectException("Invalid role bit: " + bit);
+            }
+            restored.add(new RoleAuthority(bit, in.readUTF()));
+        }
+        // 別のサーバーで作成されたセッションでも、登録済みの対応は変更せずに復元する
+        this.authorities = RoleAuthorities.resolve(roleMask, restored);
     }
 }
@@ -1,32 +1,62 @@
 package com.example.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.example.cache.EntityCache;
 import com.example.entity.User;
 import com.example.user.UserRepository;
 
 @Service
-public class SLShopUserDetailsService implements UserDetailsService {
+public class SLShopUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    private final UserDetailsCache userDetailsCache;
+
+    private final EntityCache entityCache;
+
 	@Autowired
-	public SLShopUserDetailsService(UserRepository userRepository) {
+	public SLShopUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache,
+	        EntityCache entityCache) {
 	    this.userRepository = userRepository;
+	    this.userDetailsCache = userDetailsCache;
+	    this.entityCache = entityCache;
     }
 
 	@Override
 	public SLShopUserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = this.userRepository.findByEmail(email);
+        // キャッシュに無い場合のみDBから取得する
+        SLShopUserDetails userDetails = userDetailsCache.get(email, this::load);
 
-        if (user == null) {
+        if (userDetails == null) {
             throw new UsernameNotFoundException("ユーザが見つかりません");
         }
 
-        return new SLShopUserDetails(user);
+        return userDetails;
+	}
+
+	/**
+	 * 古い方式・コストのパスワードを再ハッシュ化したパスワードに置き換える
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+	    userRepository.updatePassword(user.getUsername(), user.getPassword(), newPassword);
+	    // 認証用キャッシュ・管理者情報のキャッシュを破棄する
+	    userDetailsCache.evict(user.getUsername());
+	    if (user instanceof SLShopUserDetails) {
+	        entityCache.evict(User.class, ((SLShopUserDetails) user).getId());
+	    }
+	    return user;
+	}
+
+	private SLShopUserDetails load(String email) {
+	    User user = this.userRepository.findByEmail(email);
+	    return user != null ? new SLShopUserDetails(user) : null;
 	}
 
 }
@@ -1,21 +1,48 @@
 package com.example.security;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    private final LoginThrottle loginThrottle;
+
+    private final SLShopUserDetailsService userDetailsService;
+
+    /** BCryptのコスト（全サーバーで同じ値とする） */
+    private final int bcryptCost;
+
+    @Autowired
+    public SecurityConfig(LoginThrottle loginThrottle, SLShopUserDetailsService userDetailsService,
+            @Value("${slshop.password.bcrypt-cost:12}") int bcryptCost) {
+        this.loginThrottle = loginThrottle;
+        this.userDetailsService = userDetailsService;
+        this.bcryptCost = bcryptCost;
+    }
+
+    /**
+     * パスワードのハッシュ化方式
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return PasswordEncoderFactory.create(bcryptCost);
+    }
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        auth.authenticationProvider(
+                new RehashingAuthenticationProvider(userDetailsService, userDetailsService, passwordEncoder()));
     }
 
     @Override
@@ -38,6 +65,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .defaultSuccessUrl("/home", true)
                 .failureUrl("/loginForm?error");
 
+        // パスワードの照合の前に、ログイン試行の流量を制限する
+        http.addFilterBefore(new LoginThrottleFilter(loginThrottle, "/login", "email"),
+                UsernamePasswordAuthenticationFilter.class);
+
         http.logout()
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/loginForm");
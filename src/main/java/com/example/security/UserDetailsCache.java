@@ -0,0 +1,70 @@
+package com.example.security;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.cache.BoundedCache;
+
+/**
+ * 認証用の管理者情報のキャッシュ
+ *
+ * メールアドレスをキーに、件数上限（LRU）と有効期限付きで保持し、ログインの度にDBへ問い合わせない。
+ * 存在しないメールアドレスは保持しない（任意のメールアドレスによるログイン試行でキャッシュを溢れさせない）。
+ */
+@Component
+public class UserDetailsCache {
+
+    /** 破棄の単位（管理者情報の更新で取得中の結果を保存しない） */
+    private static final Object USERS = SLShopUserDetails.class;
+
+    /** 管理者情報 */
+    private final BoundedCache<String, SLShopUserDetails> entries;
+
+    public UserDetailsCache(@Value("${slshop.user-details-cache.max-entries:1000}") int maxEntries,
+            @Value("${slshop.user-details-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.entries = new BoundedCache<>(maxEntries, ttlSeconds);
+    }
+
+    /**
+     * メールアドレスに紐づく管理者情報を取得する（キャッシュに無い場合は取得して保存する）
+     *
+     * @param email メールアドレス
+     * @param loader 取得処理（存在しない場合はnullを返す）
+     * @return 管理者情報（存在しない場合はnull）
+     */
+    public SLShopUserDetails get(String email, Function<String, SLShopUserDetails> loader) {
+        SLShopUserDetails cached = entries.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = entries.generation(USERS);
+        SLShopUserDetails loaded = loader.apply(email);
+        if (loaded != null) {
+            entries.put(email, loaded, USERS, generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * メールアドレスに紐づく管理者情報を破棄する
+     *
+     * @param email 更新された管理者情報のメールアドレス
+     */
+    public void evict(String email) {
+        entries.evict(USERS, email);
+    }
+
+    /**
+     * キャッシュの統計情報を取得する
+     *
+     * @return 統計情報
+     */
+    public Map<String, Long> stats() {
+        return entries.stats();
+    }
+
+}
@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.cache.ReferenceData;
 import com.example.entity.Role;
 import com.example.entity.User;
 
@@ -22,9 +23,12 @@ public class UserController {
 
     private final UserService userService;
 
+    private final ReferenceData referenceData;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ReferenceData referenceData) {
         this.userService = userService;
+        this.referenceData = referenceData;
     }
 
     /**
@@ -52,8 +56,8 @@ public class UserController {
     public String newUser(Model model) {
         // 新規登録用に、空の管理者情報作成
         User user = new User();
-        // 全ロール情報の取得
-        List<Role> listRoles = userService.listRoles();
+        // 全ロール情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Role> listRoles = referenceData.getRoles();
         model.addAttribute("user", user);
         model.addAttribute("listRoles", listRoles);
         return "users/user_form";
@@ -127,8 +131,8 @@ public class UserController {
             return "redirect:/users";
         }
 
-        // 全ロール情報の取得
-        List<Role> listRoles = userService.listRoles();
+        // 全ロール情報の取得（スナップショットから取得し、DBにはアクセスしない）
+        List<Role> listRoles = referenceData.getRoles();
         model.addAttribute("listRoles", listRoles);
         return "users/user_edit";
     }
@@ -2,13 +2,21 @@ package com.example.user;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /** DISTINCTをSQLに含めるかどうかのヒント（Hibernate） */
+    String PASS_DISTINCT_THROUGH = "hibernate.query.passDistinctThrough";
+
     /**
      * 管理者情報の件数取得
      *
@@ -26,12 +34,58 @@ public interface UserRepository extends JpaRepository<User, Long> {
     public User findByEmail(String email);
 
     /**
-     * 管理者情報検索クエリ
+     * 管理者情報の一覧取得クエリ（ロール情報も1回のクエリで取得する）
+     *
+     * 結合による重複はHibernateが除くため、SQLにはDISTINCTを付けない
+     *
+     * @return 管理者情報のリスト
+     */
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles ORDER BY u.id")
+    public List<User> findAllWithRoles();
+
+    /**
+     * メールアドレスの前方一致検索クエリ（EMAILの索引を使う。ロール情報も1回のクエリで取得する）
+     *
+     * @param prefix メールアドレスの先頭部分
+     * @return 管理者情報のリスト
+     */
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles"
+            + " WHERE u.email LIKE ?#{escape([0])}% ESCAPE ?#{escapeCharacter()} ORDER BY u.email")
+    public List<User> searchByEmailPrefix(String prefix);
+
+    /**
+     * 管理者名の部分一致検索クエリ（正規化した管理者名で検索する。ロール情報も1回のクエリで取得する）
+     *
+     * 部分一致のため索引は使えず、USERSを全件走査する（管理者は少数のため、正規化済みの列の比較のみとする）
+     *
+     * @param keyword 正規化した検索キーワード
+     * @return 管理者情報のリスト
+     */
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles"
+            + " WHERE u.nameNormalized LIKE %?#{escape([0])}% ESCAPE ?#{escapeCharacter()} ORDER BY u.nameNormalized")
+    public List<User> searchByName(String keyword);
+
+    /**
+     * 検索用の管理者名が未設定の管理者情報取得クエリ
      *
-     * @param keyword 検索キーワード
      * @return 管理者情報のリスト
      */
-    @Query("SELECT u FROM User u WHERE CONCAT(u.id, ' ', u.email, ' ', u.name, ' ') LIKE %?1%")
-    public List<User> search(String keyword);
+    public List<User> findByNameNormalizedIsNull();
+
+    /**
+     * パスワードの再ハッシュ化クエリ（ハッシュ化中に変更されたパスワードは更新しない）
+     *
+     * @param email メールアドレス
+     * @param currentPassword 再ハッシュ化前のパスワード
+     * @param newPassword 再ハッシュ化したパスワード
+     * @return 更新件数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = ?3 WHERE u.email = ?1 AND u.password = ?2")
+    public int updatePassword(String email, String currentPassword, String newPassword);
 
 }
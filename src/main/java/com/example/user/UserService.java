@@ -1,29 +1,50 @@
 package com.example.user;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.Role;
 import com.example.entity.User;
+import com.example.security.UserDetailsCache;
 
 @Service
 public class UserService {
 
+    /** IDで検索するキーワード（Long型に収まる桁数の数字） */
+    private static final Pattern ID_KEYWORD = Pattern.compile("^[0-9]{1,18}$");
+
     private final UserRepository userRepository;
 
     private final RoleRepository roleRepository;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final SearchResultCache searchResultCache;
+
+    private final EntityCache entityCache;
+
+    private final UserDetailsCache userDetailsCache;
+
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+            SearchResultCache searchResultCache, EntityCache entityCache, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.searchResultCache = searchResultCache;
+        this.entityCache = entityCache;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
@@ -33,14 +54,49 @@ public class UserService {
      * @return 管理者情報のリスト
      */
     public List<User> listAll(String keyword) {
+        String normalized = SearchResultCache.normalize(keyword);
         // 検索キーワードがあった場合
-        if (keyword != null && !keyword.isEmpty()) {
-            return userRepository.search(keyword);
+        if (normalized != null && !normalized.isEmpty()) {
+            return searchResultCache.get(User.class, normalized, () -> search(normalized));
         }
         // それ以外の場合
         else {
-            return userRepository.findAll();
+            return userRepository.findAllWithRoles();
+        }
+    }
+
+    /**
+     * 検索キーワードの種類に応じて、ID・メールアドレスは索引を使える条件で、管理者名は部分一致で検索する
+     *
+     * @param keyword 検索キーワード
+     * @return 管理者情報のリスト
+     */
+    private List<User> search(String keyword) {
+        // 数字のみの場合はIDの完全一致
+        if (ID_KEYWORD.matcher(keyword).matches()) {
+            return find(Long.valueOf(keyword)).map(Collections::singletonList).orElse(Collections.emptyList());
+        }
+        // @を含む場合はメールアドレスの前方一致
+        if (keyword.indexOf('@') >= 0) {
+            return userRepository.searchByEmailPrefix(keyword);
         }
+        // それ以外の場合は正規化した管理者名の部分一致
+        return userRepository.searchByName(User.normalizeName(keyword));
+    }
+
+    /**
+     * 起動時に、検索用の管理者名が未設定の管理者情報を更新する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNormalizedNames() {
+        List<User> users = userRepository.findByNameNormalizedIsNull();
+        if (users.isEmpty()) {
+            return;
+        }
+        users.forEach(User::normalizeName);
+        userRepository.saveAll(users);
+        searchResultCache.invalidate(User.class);
+        entityCache.evictAll(User.class);
     }
 
     /**
@@ -60,11 +116,8 @@ public class UserService {
      * @throws NotFoundException 
      */
     public User get(Long id) throws NotFoundException {
-        // IDに紐づく管理者情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
-        return userRepository.findById(id).get();
+        // IDに紐づく管理者情報の取得（キャッシュに無い場合のみDBから取得する）
+        return find(id).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -78,6 +131,8 @@ public class UserService {
         if (user.getId() != null) {
             // 更新対象の管理者情報を取得
             User existingUser = userRepository.findById(user.getId()).get();
+            // 変更前のメールアドレスでの認証用キャッシュを破棄する
+            userDetailsCache.evict(existingUser.getEmail());
             // 保存したい管理者情報のパスワードが空の場合
             if (user.getPassword().isEmpty()) {
                 // 保存したい管理者情報に以前のパスワードを格納
@@ -96,7 +151,12 @@ public class UserService {
             // ハッシュ化したパスワードを格納
             user.setPassword(encodedPassword);
         }
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // 検索結果キャッシュ・管理者情報のキャッシュ・認証用キャッシュを破棄する
+        searchResultCache.invalidate(User.class);
+        entityCache.evict(User.class, savedUser.getId());
+        userDetailsCache.evict(savedUser.getEmail());
+        return savedUser;
     }
 
     /**
@@ -150,10 +210,12 @@ public class UserService {
      */
     public void delete(Long id) throws NotFoundException {
         // IDに紐づく管理者情報が存在するかの確認
-        if (!this.exists(id)) {
-            throw new NotFoundException();
-        }
+        User user = find(id).orElseThrow(NotFoundException::new);
         userRepository.deleteById(id);
+        // 検索結果キャッシュ・管理者情報のキャッシュ・認証用キャッシュを破棄する
+        searchResultCache.invalidate(User.class);
+        entityCache.evict(User.class, id);
+        userDetailsCache.evict(user.getEmail());
     }
 
     /**
@@ -166,17 +228,13 @@ public class UserService {
     }
 
     /**
-     * 管理者情報の存在チェック
+     * IDに紐づく管理者情報の取得（存在しないことも含めてキャッシュする）
      *
-     * @param name 確認したい管理者情報のID
-     * @return true:存在する false:存在しない
+     * @param id 管理者ID
+     * @return 管理者情報（存在しない場合は空）
      */
-    private boolean exists(Long id) {
-        Long countById = userRepository.countById(id);
-        if (countById == null || countById == 0L) {
-            return false;
-        }
-        return true;
+    private Optional<User> find(Long id) {
+        return entityCache.get(User.class, id, userRepository::findById);
     }
 
 }
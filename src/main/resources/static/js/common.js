@@ -10,4 +10,73 @@ $(document).ready(function() {
         $("#confirmModal").modal();
     });
 
+    // 商品画像は選択時に先にアップロードし、フォームではファイル名のみ送信する
+    $(".image-upload").on("change", function() {
+        var input = this;
+        if (input.files.length === 0) {
+            return;
+        }
+        var form = $(input).closest("form");
+        var data = new FormData();
+        data.append("file", input.files[0]);
+        $.ajax({
+            url: $(input).data("upload-url"),
+            type: "POST",
+            data: data,
+            processData: false,
+            contentType: false,
+            headers: { "X-CSRF-TOKEN": form.find("input[name='_csrf']").val() }
+        }).done(function(result) {
+            form.find("input[name='imageFileName']").val(result.fileName);
+            form.find(".image-upload-preview").attr("src", result.url).show();
+            $(input).val("");
+        }).fail(function(xhr) {
+            alert(xhr.responseJSON && xhr.responseJSON.error ? xhr.responseJSON.error : "アップロードに失敗しました");
+            $(input).val("");
+        });
+    });
+
+    // 商品一括登録のCSVは本文を読み込みながら登録するため、CSRFトークンはヘッダーで送信する
+    $(".csv-import").on("submit", function(e) {
+        e.preventDefault();
+        var form = $(this);
+        var button = form.find("button").prop("disabled", true);
+        var message = $(".import-message").hide().removeClass("alert-success alert-danger");
+        var data = new FormData();
+        data.append("file", form.find("input[name='file']")[0].files[0]);
+        $.ajax({
+            url: form.attr("action"),
+            type: "POST",
+            data: data,
+            processData: false,
+            contentType: false,
+            headers: { "X-CSRF-TOKEN": form.find("input[name='_csrf']").val() }
+        }).done(function(body) {
+            var result = body.result;
+            var panel = $(".import-result");
+            panel.find(".imported-count").text(result.importedCount);
+            panel.find(".error-count").text(result.errorCount);
+            panel.find(".elapsed-millis").text(result.elapsedMillis);
+            panel.find(".rows-per-second").text(result.rowsPerSecond);
+            var rows = panel.find("tbody").empty();
+            $.each(result.errors, function(i, error) {
+                rows.append($("<tr>").append($("<th scope='row'>").text(error.lineNumber),
+                        $("<td>").text(error.message)));
+            });
+            panel.find(".import-errors").toggle(result.errors.length > 0);
+            panel.show();
+            if (body.success_message) {
+                message.addClass("alert-success").text(body.success_message).show();
+            } else {
+                message.addClass("alert-danger").text(body.error_message).show();
+            }
+        }).fail(function(xhr) {
+            $(".import-result").hide();
+            message.addClass("alert-danger").text(xhr.responseJSON && xhr.responseJSON.error_message
+                    ? xhr.responseJSON.error_message : "登録に失敗しました").show();
+        }).always(function() {
+            button.prop("disabled", false);
+        });
+    });
+
 });
\ No newline at end of file
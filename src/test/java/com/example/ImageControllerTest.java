@@ -0,0 +1,135 @@
+package com.example;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class ImageControllerTest {
+
+    /** 配信するファイルを置くディレクトリ */
+    @TempDir
+    Path rootDir;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Path dir = Files.createDirectories(rootDir.resolve("product-images/1"));
+        Files.write(dir.resolve("test.png"), "0123456789".getBytes());
+        Files.write(rootDir.resolve("secret.txt"), "secret".getBytes());
+
+        ImageController target = new ImageController(rootDir.toString(), new MockServletContext());
+        // MockMvcの生成
+        this.mockMvc = MockMvcBuilders.standaloneSetup(target).alwaysDo(log()).build();
+    }
+
+    /**
+     * 画像配信の検証
+     */
+    @Test
+    void serveImageTest() throws Exception {
+        this.mockMvc.perform(get("/product-images/1/test.png"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("0123456789".getBytes()))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", ImageController.CACHE_REVALIDATE))
+                .andExpect(header().string("Accept-Ranges", "bytes"));
+    }
+
+    /**
+     * 内容のハッシュ値をファイル名として保存した画像のみ、変更されない前提でキャッシュさせることの検証
+     */
+    @Test
+    void serveBlobImageCacheTest() throws Exception {
+        String hash = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+        Path blobDir = Files.createDirectories(rootDir.resolve("product-images/blobs/01/23"));
+        Files.write(blobDir.resolve(hash + ".png"), "0123456789".getBytes());
+        // ハッシュ値の形式でも、保存先以外に置かれたファイルは対象外
+        Files.write(rootDir.resolve("product-images/1/" + hash + ".png"), "0123456789".getBytes());
+
+        this.mockMvc.perform(get("/product-images/blobs/01/23/" + hash + ".png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", ImageController.CACHE_IMMUTABLE));
+        this.mockMvc.perform(get("/product-images/1/" + hash + ".png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", ImageController.CACHE_REVALIDATE));
+    }
+
+    /**
+     * 縮小版が無い場合に元画像を配信することの検証
+     */
+    @Test
+    void serveVariantFallbackTest() throws Exception {
+        String hash = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+        Path blobDir = Files.createDirectories(rootDir.resolve("product-images/blobs/01/23"));
+        Files.write(blobDir.resolve(hash + ".webp"), "original".getBytes());
+
+        // 縮小版の作成後に切り替わるよう、元画像の内容でもキャッシュ期間は再検証とする
+        this.mockMvc.perform(get("/product-images/blobs/01/23/" + hash + "_detail.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("original".getBytes()))
+                .andExpect(header().string("Cache-Control", ImageController.CACHE_REVALIDATE));
+        this.mockMvc.perform(get("/product-images/1/test_thumbnail.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("0123456789".getBytes()));
+
+        Files.write(blobDir.resolve(hash + "_detail.jpg"), "detail".getBytes());
+        this.mockMvc.perform(get("/product-images/blobs/01/23/" + hash + "_detail.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("detail".getBytes()));
+        this.mockMvc.perform(get("/product-images/1/missing_detail.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * ETagが一致する場合に304を返却することの検証
+     */
+    @Test
+    void serveImageNotModifiedTest() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/product-images/1/test.png")).andReturn();
+        String etag = result.getResponse().getHeader("ETag");
+
+        this.mockMvc.perform(get("/product-images/1/test.png").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    /**
+     * 部分取得の検証
+     */
+    @Test
+    void serveImageRangeTest() throws Exception {
+        this.mockMvc.perform(get("/product-images/1/test.png").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().bytes("2345".getBytes()));
+
+        this.mockMvc.perform(get("/product-images/1/test.png").header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    /**
+     * 存在しないファイル・配信対象外のファイルの検証
+     */
+    @Test
+    void serveImageNotFoundTest() throws Exception {
+        this.mockMvc.perform(get("/product-images/1/none.png"))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(get("/product-images/../secret.txt"))
+                .andExpect(status().isNotFound());
+    }
+
+}
@@ -19,9 +19,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.example.cache.EntityCache;
 import com.example.entity.Brand;
 
 /*
@@ -35,6 +37,10 @@ class BrandServiceTest {
     /** モック化したクラス */
     @Mock
     private BrandRepository mockBrandRepository;
+
+    /** 実物のキャッシュを利用する */
+    @Spy
+    private EntityCache entityCache = new EntityCache(100, 300);
     
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
@@ -181,11 +187,9 @@ class BrandServiceTest {
         Long id = 1L;
         
         // スタブに設定するデータを作成
-        Long count = 1L;
         Optional<Brand> brand = Optional.of(new Brand());
 
         //スタブの設定
-        doReturn(count).when(this.mockBrandRepository).countById(id);
         doReturn(brand).when(this.mockBrandRepository).findById(id);
 
         // 検証
@@ -212,7 +216,7 @@ class BrandServiceTest {
         Long id = 1000L;
 
         //スタブの設定
-        doReturn(null).when(this.mockBrandRepository).countById(id);
+        doReturn(Optional.empty()).when(this.mockBrandRepository).findById(id);
         
         // 検証
         assertThatThrownBy(() -> {
@@ -240,11 +244,9 @@ class BrandServiceTest {
         Long id = 1L;
         
         // スタブに設定するデータを作成
-        Long count = 1L;
         Optional<Brand> brand = Optional.of(new Brand());
 
         // スタブの設定
-        doReturn(count).when(this.mockBrandRepository).countById(id);
         doReturn(brand).when(this.mockBrandRepository).findById(id);
 
         // 検証
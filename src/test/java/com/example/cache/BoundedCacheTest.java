@@ -0,0 +1,66 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+
+    /**
+     * 概要 件数上限による追い出し<br>
+     * 条件 上限件数を超えて保存した場合<br>
+     * 結果 最も長くアクセスされていない値が追い出されること
+     */
+    @Test
+    void 上限件数を超えた場合は最も古い値が追い出されること() {
+        BoundedCache<String, String> target = new BoundedCache<>(2, 0);
+        target.put("a", "A", "group", target.generation("group"));
+        target.put("b", "B", "group", target.generation("group"));
+        assertThat(target.get("a")).isEqualTo("A");
+
+        target.put("c", "C", "group", target.generation("group"));
+
+        assertThat(target.get("a")).isEqualTo("A");
+        assertThat(target.get("b")).isNull();
+        assertThat(target.get("c")).isEqualTo("C");
+        assertThat(target.stats()).containsEntry("size", 2L).containsEntry("evictions", 1L)
+                .containsEntry("hits", 3L).containsEntry("misses", 1L).doesNotContainKey("ttlSeconds");
+    }
+
+    /**
+     * 概要 有効期限<br>
+     * 条件 有効期限を過ぎた値を取得した場合<br>
+     * 結果 nullが返却され、値が破棄されること
+     */
+    @Test
+    void 有効期限切れの値は取得できないこと() throws InterruptedException {
+        BoundedCache<String, String> target = new BoundedCache<>(10, 1);
+        target.put("a", "A", "group", target.generation("group"));
+        assertThat(target.get("a")).isEqualTo("A");
+
+        Thread.sleep(1100);
+
+        assertThat(target.get("a")).isNull();
+        assertThat(target.stats()).containsEntry("size", 0L).containsEntry("ttlSeconds", 1L);
+    }
+
+    /**
+     * 概要 取得中の破棄<br>
+     * 条件 更新世代の取得後に同じグループの値が破棄された場合<br>
+     * 結果 古い値が保存されず、他のグループの値は保存されること
+     */
+    @Test
+    void 取得中に破棄された場合は古い値を保存しないこと() {
+        BoundedCache<String, String> target = new BoundedCache<>(10, 0);
+        long generation = target.generation("products");
+        long otherGeneration = target.generation("brands");
+
+        target.evictIf("products", key -> key.startsWith("product"));
+        target.put("product:1", "old", "products", generation);
+        target.put("brand:1", "brand", "brands", otherGeneration);
+
+        assertThat(target.get("product:1")).isNull();
+        assertThat(target.get("brand:1")).isEqualTo("brand");
+    }
+
+}
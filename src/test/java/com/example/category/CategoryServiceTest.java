@@ -19,9 +19,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.example.cache.EntityCache;
 import com.example.entity.Category;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +32,10 @@ class CategoryServiceTest {
     /** モック化したクラス */
     @Mock
     private CategoryRepository mockCategoryRepository;
+
+    /** 実物のキャッシュを利用する */
+    @Spy
+    private EntityCache entityCache = new EntityCache(100, 300);
     
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
@@ -176,10 +182,8 @@ class CategoryServiceTest {
     void カテゴリー情報が存在する場合例外が発生しないこと() {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<Category> category = Optional.of(new Category());
 
-        doReturn(count).when(this.mockCategoryRepository).countById(id);
         doReturn(category).when(this.mockCategoryRepository).findById(id);
 
         assertThatCode(() -> {
@@ -203,7 +207,7 @@ class CategoryServiceTest {
     void カテゴリー情報が存在しない場合例外が発生すること() {
         Long id = 1000L;
 
-        doReturn(null).when(this.mockCategoryRepository).countById(id);
+        doReturn(Optional.empty()).when(this.mockCategoryRepository).findById(id);
         
         assertThatThrownBy(() -> {
             target.get(id);
@@ -228,10 +232,8 @@ class CategoryServiceTest {
     void カテゴリー情報の取得処理の検証() throws Exception {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<Category> category = Optional.of(new Category());
 
-        doReturn(count).when(this.mockCategoryRepository).countById(id);
         doReturn(category).when(this.mockCategoryRepository).findById(id);
 
         Category actual = this.target.get(id);
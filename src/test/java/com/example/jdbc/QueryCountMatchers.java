@@ -0,0 +1,35 @@
+package com.example.jdbc;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * リクエストで実行したSQLの件数の検証
+ *
+ * slshop.query-budget.enabled=trueで起動し、実際のDBにSQLを実行するテストのMockMvcで使う
+ * （サービスをモック化したテストではSQLが実行されないため検証にならない）
+ */
+public final class QueryCountMatchers {
+
+    private QueryCountMatchers() {
+    }
+
+    /**
+     * 実行したSQLの件数を検証する
+     *
+     * @param expected 期待する件数
+     * @return 検証
+     */
+    public static ResultMatcher expectQueries(int expected) {
+        return result -> {
+            QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.ATTRIBUTE);
+            if (stats == null) {
+                throw new AssertionError("QueryBudgetFilter is not applied to MockMvc (slshop.query-budget.enabled=true)");
+            }
+            if (stats.getStatements() != expected) {
+                throw new AssertionError("Expected " + expected + " statements but " + stats
+                        + " were executed: " + stats.getCounts());
+            }
+        };
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.example.jdbc;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class QueryCountingDataSourceTest {
+
+    private static final String SQL = "SELECT * FROM PRODUCTS WHERE BRAND_ID = ?";
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    @AfterEach
+    void tearDown() {
+        QueryCounter.stop();
+    }
+
+    /**
+     * 概要 SQLの実行の記録<br>
+     * 条件 同じSQLを2回実行し、それぞれ2行を取得した場合<br>
+     * 結果 実行件数・往復回数が2、取得行数が4、SQL毎の実行回数が2となること
+     */
+    @Test
+    void 実行したSQLと取得した行数が記録されること() throws Exception {
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(mockStatement).when(mockConnection).prepareStatement(SQL);
+        doReturn(mockResultSet).when(mockStatement).executeQuery();
+        when(mockResultSet.next()).thenReturn(true, true, false, true, true, false);
+
+        QueryStats stats = QueryCounter.start();
+        try (Connection connection = new QueryCountingDataSource(mockDataSource).getConnection()) {
+            for (int i = 0; i < 2; i++) {
+                PreparedStatement statement = connection.prepareStatement(SQL);
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    // 読み飛ばす
+                }
+            }
+        }
+
+        assertThat(stats.getStatements()).isEqualTo(2);
+        assertThat(stats.getRoundTrips()).isEqualTo(2);
+        assertThat(stats.getRows()).isEqualTo(4);
+        assertThat(stats.mostRepeated().getKey()).isEqualTo(SQL);
+        assertThat(stats.mostRepeated().getValue()).isEqualTo(2);
+        verify(mockConnection).close();
+    }
+
+    /**
+     * 概要 バッチの記録<br>
+     * 条件 3件のSQLをバッチで実行した場合<br>
+     * 結果 実行件数が3、往復回数が1となること
+     */
+    @Test
+    void バッチは1回の往復として記録されること() throws Exception {
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(mockStatement).when(mockConnection).prepareStatement(SQL);
+
+        QueryStats stats = QueryCounter.start();
+        PreparedStatement statement = new QueryCountingDataSource(mockDataSource).getConnection().prepareStatement(SQL);
+        for (int i = 0; i < 3; i++) {
+            statement.addBatch();
+        }
+        statement.executeBatch();
+
+        assertThat(stats.getStatements()).isEqualTo(3);
+        assertThat(stats.getRoundTrips()).isEqualTo(1);
+    }
+
+    /**
+     * 概要 計測中でない場合の実行<br>
+     * 条件 計測を開始せずにSQLを実行した場合<br>
+     * 結果 記録されず、SQLは実行されること
+     */
+    @Test
+    void 計測中でない場合は記録されないこと() throws Exception {
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(mockStatement).when(mockConnection).prepareStatement(SQL);
+
+        new QueryCountingDataSource(mockDataSource).getConnection().prepareStatement(SQL).executeUpdate();
+
+        assertThat(QueryCounter.current()).isNull();
+        verify(mockStatement).executeUpdate();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.example.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+    /**
+     * 概要 画面毎の統計情報取得<br>
+     * 条件 2つの画面の処理時間を記録した場合<br>
+     * 結果 画面毎の件数・エラー数・パーセンタイルが、p99の降順で返却されること
+     */
+    @Test
+    void 画面毎の統計情報がp99の降順で取得できること() {
+        MetricsRegistry target = new MetricsRegistry();
+
+        for (int i = 1; i <= 100; i++) {
+            target.recordRequest("GET /products", TimeUnit.MILLISECONDS.toNanos(i), false);
+        }
+        target.recordRequest("POST /products/save", TimeUnit.MILLISECONDS.toNanos(500), true);
+
+        List<TimerStats> stats = target.requestStats();
+        assertThat(stats).extracting(TimerStats::getName).containsExactly("POST /products/save", "GET /products");
+        assertThat(stats.get(0).getErrors()).isEqualTo(1);
+        assertThat(stats.get(1).getCount()).isEqualTo(100);
+        assertThat(stats.get(1).getP50()).isCloseTo(50, within(0.1));
+        assertThat(stats.get(1).getMax()).isCloseTo(100, within(0.1));
+    }
+
+    /**
+     * 概要 記録の破棄<br>
+     * 条件 記録後に破棄した場合<br>
+     * 結果 件数が0になり、以降の記録のみ集計されること
+     */
+    @Test
+    void 破棄後は以降の記録のみ集計されること() {
+        MetricsRegistry target = new MetricsRegistry();
+        target.recordServiceCall("ProductService.listAll(String)", 1000, false);
+        assertThat(target.serviceStats().get(0).getCount()).isEqualTo(1);
+
+        target.recordServiceCall("ProductService.listAll(String)", 1000, false);
+        target.reset();
+        assertThat(target.serviceStats().get(0).getCount()).isZero();
+
+        target.recordServiceCall("ProductService.listAll(String)", 1000, true);
+        assertThat(target.serviceStats().get(0).getCount()).isEqualTo(1);
+        assertThat(target.serviceStats().get(0).getErrors()).isEqualTo(1);
+    }
+
+}
@@ -1,14 +1,20 @@
 package com.example.product;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,8 +25,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import com.example.brand.BrandService;
-import com.example.category.CategoryService;
+import com.example.UnsupportedImageException;
+import com.example.UploadSizeExceededException;
+import com.example.cache.ReferenceData;
+import com.example.entity.Brand;
+import com.example.entity.Category;
 import com.example.entity.Product;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,10 +40,7 @@ class ProductControllerTest {
     private ProductService mockProductService;
 
     @Mock
-    private BrandService mockBrandService;
-
-    @Mock
-    private CategoryService mockCategoryService;
+    private ReferenceData mockReferenceData;
 
     /*
      * 実務シミュではstaticメソッドを利用するようにしていたが、staticメソッドのmock化が高難易度のため、
@@ -43,6 +49,9 @@ class ProductControllerTest {
     @Mock
     private ProductSaveHelper productSaveHelper;
 
+    @Mock
+    private ProductImportService mockProductImportService;
+
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
     private ProductController target;
@@ -60,17 +69,89 @@ class ProductControllerTest {
      */
     @Test
     void listProductsTest() throws Exception {
-        List<Product> products = new ArrayList<>();
+        List<ProductListItem> products = new ArrayList<>();
+        ProductPage<ProductListItem> productPage = new ProductPage<>(products, null, null, false, false, 20);
+        ProductFacets facets = new ProductFacets(new HashMap<>(), new HashMap<>());
         String keyword = null;
 
-        doReturn(products).when(this.mockProductService).listAll(keyword);
+        doReturn(productPage).when(this.mockProductService).listPage(keyword, null, null, null, null, null);
+        doReturn(facets).when(this.mockProductService).facets(keyword, null, null);
 
         this.mockMvc.perform(get("/products").param("keyword", keyword))
                 .andExpect(status().isOk())
                 .andExpect(view().name("products/products"))
                 .andExpect(model().attribute("listProducts", products))
-                .andExpect(model().attribute("keyword", keyword));
+                .andExpect(model().attribute("productPage", productPage))
+                .andExpect(model().attribute("keyword", keyword))
+                .andExpect(model().attribute("facets", facets));
+
+    }
+
+    /**
+     * ブランド・カテゴリーで絞り込んだ商品一覧表示画面の検証
+     */
+    @Test
+    void listProductsWithFacetsTest() throws Exception {
+        List<ProductListItem> products = new ArrayList<>();
+        ProductPage<ProductListItem> productPage = new ProductPage<>(products, null, null, false, false, 20);
+        ProductFacets facets = new ProductFacets(new HashMap<>(), new HashMap<>());
+        List<Long> brandIds = Arrays.asList(1L, 2L);
+        List<Long> categoryIds = Arrays.asList(3L);
+
+        doReturn(productPage).when(this.mockProductService).listPage(null, brandIds, categoryIds, null, null, null);
+        doReturn(facets).when(this.mockProductService).facets(null, brandIds, categoryIds);
+
+        this.mockMvc.perform(get("/products").param("brand", "1", "2").param("category", "3"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("products/products"))
+                .andExpect(model().attribute("productPage", productPage))
+                .andExpect(model().attribute("facets", facets))
+                .andExpect(model().attribute("brandIds", brandIds))
+                .andExpect(model().attribute("categoryIds", categoryIds));
+    }
 
+    /**
+     * 商品情報CSVエクスポートの検証
+     */
+    @Test
+    void exportProductsTest() throws Exception {
+        doNothing().when(this.mockProductService).exportCsv(any(Writer.class));
+
+        this.mockMvc.perform(get("/products/export.csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.csv\""));
+    }
+
+    /**
+     * 商品情報CSVインポートの検証
+     */
+    @Test
+    void importProductsTest() throws Exception {
+        ProductImportResult importResult = new ProductImportResult();
+        importResult.addImported(3);
+
+        doReturn(importResult).when(this.mockProductImportService).importCsv(any(HttpServletRequest.class));
+
+        this.mockMvc.perform(post("/products/import").contentType("multipart/form-data; boundary=xyz")
+                .content("--xyz--\r\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.importedCount").value(3))
+                .andExpect(jsonPath("$.success_message").value("3件の登録に成功しました"));
+    }
+
+    /**
+     * 商品情報CSVインポートの検証（上限サイズ超過）
+     */
+    @Test
+    void importProductsTooLargeTest() throws Exception {
+        doThrow(new UploadSizeExceededException(100)).when(this.mockProductImportService)
+                .importCsv(any(HttpServletRequest.class));
+
+        this.mockMvc.perform(post("/products/import").contentType("multipart/form-data; boundary=xyz")
+                .content("--xyz--\r\n"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error_message").value("ファイルサイズが上限を超えています"));
     }
 
     /**
@@ -78,9 +159,17 @@ class ProductControllerTest {
      */
     @Test
     void newProductTest() throws Exception {
+        List<Brand> brands = new ArrayList<>();
+        List<Category> categories = new ArrayList<>();
+
+        doReturn(brands).when(this.mockReferenceData).getBrands();
+        doReturn(categories).when(this.mockReferenceData).getCategories();
+
         MvcResult result = this.mockMvc.perform(get("/products/new"))
                 .andExpect(status().isOk())
-                .andExpect(view().name("products/product_form")).andReturn();
+                .andExpect(view().name("products/product_form"))
+                .andExpect(model().attribute("listBrands", brands))
+                .andExpect(model().attribute("listCategories", categories)).andReturn();
 
         Product actual = (Product) result.getModelAndView().getModel().get("product");
         assertThat(actual).isInstanceOf(Product.class);
@@ -104,6 +193,44 @@ class ProductControllerTest {
 
     }
 
+    /**
+     * 商品画像アップロード処理の検証
+     */
+    @Test
+    void uploadImageTest() throws Exception {
+        String fileName = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.jpg";
+        doReturn(fileName).when(this.productSaveHelper).uploadImage(any(HttpServletRequest.class));
+
+        this.mockMvc.perform(post("/products/images"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileName").value(fileName))
+                .andExpect(jsonPath("$.url").value("/product-images/blobs/01/23/" + fileName));
+    }
+
+    /**
+     * 商品画像アップロード処理の検証（上限サイズ超過）
+     */
+    @Test
+    void uploadImageTooLargeTest() throws Exception {
+        doThrow(new UploadSizeExceededException(10)).when(this.productSaveHelper)
+                .uploadImage(any(HttpServletRequest.class));
+
+        this.mockMvc.perform(post("/products/images"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    /**
+     * 商品画像アップロード処理の検証（画像以外のファイル）
+     */
+    @Test
+    void uploadImageUnsupportedTest() throws Exception {
+        doThrow(new UnsupportedImageException("test.html")).when(this.productSaveHelper)
+                .uploadImage(any(HttpServletRequest.class));
+
+        this.mockMvc.perform(post("/products/images"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * 商品詳細画面の検証
      */
@@ -0,0 +1,145 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.UnsupportedImageException;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImageStoreTest {
+
+    @Mock
+    private ProductRepository mockProductRepository;
+
+    /** 画像のディレクトリ */
+    @TempDir
+    Path rootDir;
+
+    private ProductImageStore target;
+
+    @BeforeEach
+    void setup() {
+        this.target = new ProductImageStore(this.mockProductRepository, rootDir.toString(), 60);
+    }
+
+    /**
+    * 画像保存処理の検証<br>
+    * 条件 内容がPNGの画像<br>
+    * 結果 内容のハッシュ値をファイル名として保存されること
+    */
+    @Test
+    void 画像保存処理の検証() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", png);
+
+        String fileName = this.target.store(new ByteArrayInputStream(png.toByteArray()), "test.PNG", 1024);
+        assertThat(fileName).matches("[0-9a-f]{64}\\.png");
+        assertThat(Files.readAllBytes(this.target.resolve(fileName))).isEqualTo(png.toByteArray());
+    }
+
+    /**
+    * 画像保存処理の検証<br>
+    * 条件 画像以外の拡張子、または拡張子が画像で内容がHTMLのファイル<br>
+    * 結果 保存されずに例外となること
+    */
+    @Test
+    void 画像以外のファイルの保存処理の検証() throws Exception {
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> this.target.store(new ByteArrayInputStream(html), "test.html", 1024))
+                .isInstanceOf(UnsupportedImageException.class);
+        assertThatThrownBy(() -> this.target.store(new ByteArrayInputStream(html), "test.svg", 1024))
+                .isInstanceOf(UnsupportedImageException.class);
+        assertThatThrownBy(() -> this.target.store(new ByteArrayInputStream(html), "test.png", 1024))
+                .isInstanceOf(UnsupportedImageException.class);
+        try (Stream<Path> files = Files.walk(rootDir)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    /**
+    * 削除候補の画像の削除処理の検証<br>
+    * 条件 商品情報から外れ、猶予期間を過ぎても参照されていない画像<br>
+    * 結果 参照を外した時点では削除されず、削除処理で元画像と縮小版が削除されること
+    */
+    @Test
+    void 参照されなくなった画像の削除処理の検証() throws Exception {
+        this.target = new ProductImageStore(this.mockProductRepository, rootDir.toString(), 0);
+        String fileName = storePng();
+        Path variant = this.target.resolve(fileName).resolveSibling(fileName.substring(0, 64) + "_detail.jpg");
+        Files.write(variant, new byte[] { 1 });
+        makeOld(this.target.resolve(fileName));
+        makeOld(variant);
+        doReturn(0L).when(this.mockProductRepository).countByImageIn(anyCollection());
+
+        this.target.release(fileName);
+        assertThat(this.target.resolve(fileName)).exists();
+
+        assertThat(this.target.collectReleased()).isEqualTo(2);
+        assertThat(this.target.resolve(fileName)).doesNotExist();
+        assertThat(variant).doesNotExist();
+    }
+
+    /**
+    * 削除候補の画像の削除処理の検証<br>
+    * 条件 商品情報から外れた後、別の商品情報から参照された画像<br>
+    * 結果 削除されないこと
+    */
+    @Test
+    void 再度参照された画像の削除処理の検証() throws Exception {
+        this.target = new ProductImageStore(this.mockProductRepository, rootDir.toString(), 0);
+        String fileName = storePng();
+        makeOld(this.target.resolve(fileName));
+        doReturn(1L).when(this.mockProductRepository).countByImageIn(anyCollection());
+
+        this.target.release(fileName);
+        assertThat(this.target.collectReleased()).isZero();
+        assertThat(this.target.resolve(fileName)).exists();
+        verify(this.mockProductRepository).countByImageIn(argThat(images -> images.contains(fileName)));
+    }
+
+    /**
+    * 削除候補の画像の削除処理の検証<br>
+    * 条件 商品情報から外れてから猶予期間内の画像<br>
+    * 結果 参照を確認せず、削除されないこと
+    */
+    @Test
+    void 猶予期間内の画像の削除処理の検証() throws Exception {
+        String fileName = storePng();
+
+        this.target.release(fileName);
+        assertThat(this.target.collectReleased()).isZero();
+        assertThat(this.target.resolve(fileName)).exists();
+        verifyNoInteractions(this.mockProductRepository);
+    }
+
+    private String storePng() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", png);
+        return this.target.store(new ByteArrayInputStream(png.toByteArray()), "test.png", 1024);
+    }
+
+    private static void makeOld(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    }
+
+}
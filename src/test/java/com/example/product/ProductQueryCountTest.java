@@ -0,0 +1,106 @@
+package com.example.product;
+
+import static com.example.jdbc.QueryCountMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.brand.BrandRepository;
+import com.example.cache.ReferenceData;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.entity.User;
+import com.example.security.SLShopUserDetails;
+
+/**
+ * 商品画面で実行するSQLの件数の検証（インメモリDBで実際にSQLを実行する）
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-query-count;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "slshop.query-budget.enabled=true" })
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ProductQueryCountTest {
+
+    /** 登録する商品の件数 */
+    private static final int PRODUCT_COUNT = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ReferenceData referenceData;
+
+    @Autowired
+    private ProductService productService;
+
+    private Long productId;
+
+    /** ログイン中の管理者（画面のヘッダーに表示する） */
+    private SLShopUserDetails loginUser;
+
+    @BeforeEach
+    void setup() {
+        Brand brand = brandRepository.save(new Brand("ブランド"));
+        Category category = categoryRepository.save(new Category("カテゴリー"));
+        referenceData.load();
+        User user = new User("admin@example.com", "管理者");
+        user.setId(1L);
+        loginUser = new SLShopUserDetails(user).withoutPassword();
+        for (int i = 1; i <= PRODUCT_COUNT; i++) {
+            Product product = new Product("商品" + i, "商品説明" + i);
+            product.setBrand(brand);
+            product.setCategory(category);
+            productId = productService.save(product).getId();
+        }
+    }
+
+    /**
+     * 概要 商品一覧表示画面のSQLの件数<br>
+     * 条件 1ページより多い商品を登録し、先頭ページを表示した場合<br>
+     * 結果 1ページ分の取得のみ実行されること（ブランド・カテゴリー毎の件数、選択肢はDBに問い合わせない）
+     */
+    @Test
+    void listProductsQueryCountTest() throws Exception {
+        this.mockMvc.perform(get("/products").with(user(loginUser)))
+                .andExpect(status().isOk())
+                .andExpect(expectQueries(1));
+    }
+
+    /**
+     * 概要 商品詳細画面のSQLの件数<br>
+     * 条件 同じ商品の詳細を2回表示した場合<br>
+     * 結果 1回目は商品情報の取得のみ実行され、2回目はDBに問い合わせないこと
+     */
+    @Test
+    void detailProductQueryCountTest() throws Exception {
+        this.mockMvc.perform(get("/products/detail/{id}", productId).with(user(loginUser)))
+                .andExpect(status().isOk())
+                .andExpect(expectQueries(1));
+
+        this.mockMvc.perform(get("/products/detail/{id}", productId).with(user(loginUser)))
+                .andExpect(status().isOk())
+                .andExpect(expectQueries(0));
+    }
+
+}
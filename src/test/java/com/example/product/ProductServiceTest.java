@@ -7,6 +7,8 @@ import static org.mockito.Mockito.*;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.dbunit.database.DatabaseConnection;
@@ -21,9 +23,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.Pageable;
 
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.Product;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +38,20 @@ class ProductServiceTest {
     /** モック化したクラス */
     @Mock
     private ProductRepository mockProductRepository;
+
+    /** 実物のキャッシュを利用する */
+    @Spy
+    private EntityCache entityCache = new EntityCache(100, 300);
+
+    @Mock
+    private ProductSearchIndex mockProductSearchIndex;
+
+    @Mock
+    private ProductImageStore mockProductImageStore;
+
+    /** 実物のキャッシュを利用する */
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(100);
     
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
@@ -154,10 +174,8 @@ class ProductServiceTest {
     void 商品情報が存在する場合例外が発生しないこと() {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<Product> product = Optional.of(new Product());
 
-        doReturn(count).when(this.mockProductRepository).countById(id);
         doReturn(product).when(this.mockProductRepository).findById(id);
 
         assertThatCode(() -> {
@@ -181,7 +199,7 @@ class ProductServiceTest {
     void 商品情報が存在しない場合例外が発生すること() {
         Long id = 1000L;
 
-        doReturn(null).when(this.mockProductRepository).countById(id);
+        doReturn(Optional.empty()).when(this.mockProductRepository).findById(id);
         
         assertThatThrownBy(() -> {
             target.get(id);
@@ -206,13 +224,180 @@ class ProductServiceTest {
     void 商品情報の取得処理の検証() throws Exception {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<Product> product = Optional.of(new Product());
 
-        doReturn(count).when(this.mockProductRepository).countById(id);
         doReturn(product).when(this.mockProductRepository).findById(id);
 
         Product actual = this.target.get(id);
         assertThat(actual).isEqualTo(product.get());
     }
+
+    /**
+    * 商品情報登録処理の検証<br>
+    * 条件 登録済みの商品情報の画像を変更する場合<br>
+    * 結果 変更前の画像の参照が外されること
+    */
+    @Test
+    void 商品画像の変更時に変更前の画像の参照が外されること() {
+        Product before = new Product("商品A");
+        before.setId(1L);
+        before.setImage("before.png");
+        Product after = new Product("商品A");
+        after.setId(1L);
+        after.setImage("after.png");
+
+        doReturn(Optional.of(before)).when(this.mockProductRepository).findById(1L);
+        doReturn(after).when(this.mockProductRepository).save(after);
+
+        this.target.save(after);
+        verify(this.mockProductImageStore).release("before.png");
+    }
+
+    /**
+    * 商品情報登録処理の検証<br>
+    * 条件 登録済みの商品情報を新しい画像なしで編集する場合<br>
+    * 結果 登録済みの画像が維持され、画像の参照が外されないこと
+    */
+    @Test
+    void 新しい画像なしの編集時に画像が維持されること() {
+        Product before = new Product("商品A");
+        before.setId(1L);
+        before.setImage("before.png");
+        Product after = new Product("商品A");
+        after.setId(1L);
+
+        doReturn(Optional.of(before)).when(this.mockProductRepository).findById(1L);
+        doReturn(after).when(this.mockProductRepository).save(after);
+
+        this.target.save(after);
+        assertThat(after.getImageFileName()).isEqualTo("before.png");
+        verify(this.mockProductImageStore, never()).release(any());
+    }
+
+    /**
+    * 商品一覧のページ取得処理の検証<br>
+    * 条件 表示件数より1件多く商品情報が取得された場合<br>
+    * 結果 表示件数分の商品情報が返却され、次ページありとなること
+    */
+    @Test
+    void 商品一覧のページ取得処理の検証() {
+        ProductListItem productA = new ProductListItem(1L, "商品A", 200000, "ブランドA", "カテゴリーA");
+        ProductListItem productB = new ProductListItem(2L, "商品B", 150000, "ブランドA", "カテゴリーA");
+        ProductListItem productC = new ProductListItem(3L, "商品C", 50000, "ブランドA", "カテゴリーA");
+
+        doReturn(Arrays.asList(productA, productB, productC))
+                .when(this.mockProductRepository).findFirstPage(any(Pageable.class));
+
+        ProductPage<ProductListItem> actual = this.target.listPage(null, null, null, 2);
+        assertThat(actual.getContent()).containsExactly(productA, productB);
+        assertThat(actual.isHasPrevious()).isFalse();
+        assertThat(actual.isHasNext()).isTrue();
+        assertThat(ProductCursor.decode(actual.getNextCursor()).getId()).isEqualTo(2L);
+    }
+
+    /**
+    * 商品一覧のページ取得処理の検証<br>
+    * 条件 ブランド・カテゴリーで絞り込む場合<br>
+    * 結果 インデックスで絞り込んだ商品IDの順序で返却され、DBで絞り込みを行わないこと
+    */
+    @Test
+    void 商品一覧の絞り込み処理の検証() {
+        ProductListItem productA = new ProductListItem(1L, "商品A", 200000, "ブランドA", "カテゴリーA");
+        ProductListItem productB = new ProductListItem(2L, "商品B", 150000, "ブランドA", "カテゴリーA");
+        List<Long> brandIds = Arrays.asList(1L);
+        List<Long> categoryIds = Arrays.asList(1L);
+
+        doReturn(true).when(this.mockProductSearchIndex).isReady();
+        doReturn(Arrays.asList(1L, 2L)).when(this.mockProductSearchIndex)
+                .searchPage(null, brandIds, categoryIds, null, null, 21);
+        doReturn(Arrays.asList(productB, productA))
+                .when(this.mockProductRepository).findListItemsByIdIn(Arrays.asList(1L, 2L));
+
+        ProductPage<ProductListItem> actual = this.target.listPage(null, brandIds, categoryIds, null, null, null);
+        assertThat(actual.getContent()).containsExactly(productA, productB);
+        assertThat(actual.isHasNext()).isFalse();
+        verify(this.mockProductRepository, never()).findFirstPage(any(Pageable.class));
+    }
+
+    /**
+    * 商品一覧のページ取得処理の検証<br>
+    * 条件 インデックスの構築前にブランド・カテゴリーで絞り込む場合<br>
+    * 結果 インデックスの構築を待たずに、DBで絞り込んだ結果が返却されること
+    */
+    @Test
+    void 商品一覧のインデックス構築前の絞り込み処理の検証() {
+        ProductListItem productA = new ProductListItem(1L, "商品A", 200000, "ブランドA", "カテゴリーA");
+        List<Long> brandIds = Arrays.asList(1L);
+
+        doReturn(false).when(this.mockProductSearchIndex).isReady();
+        doReturn(Arrays.asList(productA)).when(this.mockProductRepository)
+                .filterFirstPage(eq(null), eq(false), eq(brandIds), eq(true), anyCollection(), any(Pageable.class));
+
+        ProductPage<ProductListItem> actual = this.target.listPage(null, brandIds, null, null, null, null);
+        assertThat(actual.getContent()).containsExactly(productA);
+        verify(this.mockProductSearchIndex, never()).searchPage(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    /**
+    * 商品情報検索処理の検証<br>
+    * 条件 インデックスから商品IDが取得できる場合<br>
+    * 結果 インデックスの順序で商品情報が返却されること
+    */
+    @Test
+    void 商品情報検索処理の検証() {
+        Product productA = new Product("商品A");
+        productA.setId(1L);
+        Product productB = new Product("商品B");
+        productB.setId(2L);
+
+        doReturn(true).when(this.mockProductSearchIndex).isReady();
+        doReturn(Arrays.asList(1L, 2L)).when(this.mockProductSearchIndex).search("商品");
+        doReturn(Arrays.asList(productB, productA)).when(this.mockProductRepository).findAllById(Arrays.asList(1L, 2L));
+
+        List<Product> actual = this.target.listAll("商品");
+        assertThat(actual).containsExactly(productA, productB);
+        verify(this.mockProductRepository, never()).search(anyString());
+    }
+
+    /**
+    * 商品一覧のページ取得処理の検証<br>
+    * 条件 同じキーワード・同じページを2回取得し、間に商品情報を登録する<br>
+    * 結果 2回目は検索結果キャッシュから返却され、登録後は再検索されること
+    */
+    @Test
+    void 商品情報検索結果のキャッシュの検証() {
+        Product product = new Product("商品A");
+        product.setId(1L);
+        ProductListItem item = new ProductListItem(1L, "商品A", 200000, "ブランドA", "カテゴリーA");
+
+        doReturn(true).when(this.mockProductSearchIndex).isReady();
+        doReturn(Arrays.asList(1L)).when(this.mockProductSearchIndex)
+                .searchPage("商品", null, null, null, null, 21);
+        doReturn(Arrays.asList(item)).when(this.mockProductRepository).findListItemsByIdIn(Arrays.asList(1L));
+        doReturn(product).when(this.mockProductRepository).save(product);
+
+        this.target.listPage("商品", null, null, null);
+        this.target.listPage(" 商品 ", null, null, null);
+        verify(this.mockProductSearchIndex, times(1)).searchPage("商品", null, null, null, null, 21);
+
+        this.target.save(product);
+        assertThat(this.target.listPage("商品", null, null, null).getContent()).containsExactly(item);
+        verify(this.mockProductSearchIndex, times(2)).searchPage("商品", null, null, null, null, 21);
+    }
+
+    /**
+    * 商品情報の取得処理の検証<br>
+    * 条件 存在しない商品IDで2回取得する<br>
+    * 結果 2回とも例外が発生し、DBへの問い合わせは1回であること
+    */
+    @Test
+    void 存在しない商品情報のキャッシュの検証() {
+        Long id = 1000L;
+
+        doReturn(Optional.empty()).when(this.mockProductRepository).findById(id);
+
+        assertThatThrownBy(() -> target.get(id)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> target.get(id)).isInstanceOf(NotFoundException.class);
+        verify(this.mockProductRepository, times(1)).findById(id);
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LoginThrottleTest {
+
+    /**
+     * 概要 ログイン試行のトークン取得<br>
+     * 条件 同じメールアドレスで上限回数を超えて試行した場合<br>
+     * 結果 上限回数までは試行でき、超えた試行は再試行までの秒数が返却されること
+     */
+    @Test
+    void メールアドレス毎の上限を超えた試行が拒否されること() {
+        LoginThrottle target = new LoginThrottle(100, 60, 3, 1, 1000, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(target.tryAcquire("192.0.2.1", "admin@example.com")).isZero();
+        }
+        assertThat(target.tryAcquire("192.0.2.2", "Admin@Example.com")).isPositive();
+        assertThat(target.tryAcquire("192.0.2.2", "other@example.com")).isZero();
+    }
+
+    /**
+     * 概要 パスワードの照合の開始<br>
+     * 条件 同時実行数の上限に達している場合<br>
+     * 結果 開始できず、終了後は開始できること
+     */
+    @Test
+    void 同時実行数の上限に達した場合照合を開始できないこと() {
+        LoginThrottle target = new LoginThrottle(100, 60, 3, 1, 1000, 1);
+
+        assertThat(target.tryStartVerification()).isTrue();
+        assertThat(target.tryStartVerification()).isFalse();
+        target.endVerification();
+        assertThat(target.tryStartVerification()).isTrue();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.example.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordEncoderFactoryTest {
+
+    /**
+     * 概要 パスワードのハッシュ化<br>
+     * 条件 コストを指定して作成した場合<br>
+     * 結果 方式とコストがハッシュ値に記録され、再ハッシュ化が不要と判定されること
+     */
+    @Test
+    void ハッシュ値に方式とコストが記録されること() {
+        PasswordEncoder target = PasswordEncoderFactory.create(5);
+
+        String actual = target.encode("password");
+
+        assertThat(actual).startsWith("{bcrypt}$2a$05$");
+        assertThat(target.matches("password", actual)).isTrue();
+        assertThat(target.upgradeEncoding(actual)).isFalse();
+    }
+
+    /**
+     * 概要 パスワードの照合<br>
+     * 条件 方式の記録が無い、または低いコストのハッシュ値の場合<br>
+     * 結果 照合でき、再ハッシュ化が必要と判定されること
+     */
+    @Test
+    void 古いハッシュ値が照合でき再ハッシュ化が必要と判定されること() {
+        PasswordEncoder target = PasswordEncoderFactory.create(5);
+        String legacy = new BCryptPasswordEncoder(4).encode("password");
+
+        assertThat(target.matches("password", legacy)).isTrue();
+        assertThat(target.upgradeEncoding(legacy)).isTrue();
+        assertThat(target.upgradeEncoding("{bcrypt}" + legacy)).isTrue();
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.entity.Role;
+import com.example.entity.User;
+
+class SLShopUserDetailsTest {
+
+    @BeforeEach
+    void setUp() {
+        RoleAuthorities.load(Arrays.asList(role(1L, "管理者"), role(2L, "アシスタント")));
+    }
+
+    /**
+     * 概要 認証済みの管理者情報の作成<br>
+     * 条件 同じロールの組み合わせの管理者の場合<br>
+     * 結果 ロールのビットマスクで判定でき、権限リストが共有されること
+     */
+    @Test
+    void ロールがビットマスクで判定され権限リストが共有されること() {
+        Role admin = role(1L, "管理者");
+        Role assistant = role(2L, "アシスタント");
+        User first = new User("first@example.com", "first");
+        first.addRole(admin);
+        first.addRole(assistant);
+        User second = new User("second@example.com", "second");
+        second.addRole(assistant);
+        second.addRole(admin);
+
+        SLShopUserDetails actual = new SLShopUserDetails(first);
+
+        assertThat(actual.getRoleMask()).isEqualTo(0b11L);
+        assertThat(actual.hasRole("管理者")).isTrue();
+        assertThat(actual.hasRole("編集者")).isFalse();
+        assertThat(actual.getAuthorities()).extracting("authority").containsExactly("管理者", "アシスタント");
+        assertThat(actual.getAuthorities()).isSameAs(new SLShopUserDetails(second).getAuthorities());
+    }
+
+    /**
+     * 概要 セッションに保持する管理者情報の直列化<br>
+     * 条件 パスワードを含まない管理者情報を直列化・復元した場合<br>
+     * 結果 ID・管理者名・ロールが復元され、パスワードのハッシュ値を含まないこと
+     */
+    @Test
+    void セッションに保持する管理者情報が直列化できること() throws Exception {
+        User user = new User("first@example.com", "first");
+        user.setId(1L);
+        user.setPassword("{bcrypt}hash");
+        user.addRole(role(1L, "管理者"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new SLShopUserDetails(user).withoutPassword());
+        }
+        SLShopUserDetails actual;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            actual = (SLShopUserDetails) in.readObject();
+        }
+
+        assertThat(actual.getId()).isEqualTo(1L);
+        assertThat(actual.getName()).isEqualTo("first");
+        assertThat(actual.getPassword()).isNull();
+        assertThat(actual.hasRole("管理者")).isTrue();
+        assertThat(actual.getAuthorities()).extracting("authority").containsExactly("管理者");
+    }
+
+    /**
+     * 概要 セッションに保持する管理者情報の直列化<br>
+     * 条件 復元するサーバーでロールの対応が異なる場合<br>
+     * 結果 直列化したロール名で復元され、復元するサーバーのロールの対応は変更されないこと
+     */
+    @Test
+    void ロールの対応が異なるサーバーで復元しても対応が変更されないこと() throws Exception {
+        User user = new User("first@example.com", "first");
+        user.setId(1L);
+        user.addRole(role(1L, "管理者"));
+        user.addRole(role(3L, "編集者"));
+        user.addRole(role(70L, "未登録"));
+        RoleAuthorities.load(Arrays.asList(role(1L, "管理者"), role(3L, "編集者")));
+        SLShopUserDetails source = new SLShopUserDetails(user).withoutPassword();
+
+        RoleAuthorities.load(Collections.singletonList(role(1L, "管理者")));
+        SLShopUserDetails actual = copy(source);
+
+        assertThat(actual.getRoleMask()).isEqualTo(0b101L);
+        assertThat(actual.getAuthorities()).extracting("authority").containsExactly("管理者", "編集者");
+        assertThat(RoleAuthorities.of("編集者")).isNull();
+        assertThat(RoleAuthorities.authorities(0b101L)).extracting("authority").containsExactly("管理者");
+    }
+
+    /**
+     * 概要 ロールの対応の読み込み<br>
+     * 条件 IDがビットで表せる範囲外のロールがある場合<br>
+     * 結果 IllegalStateExceptionが発生すること
+     */
+    @Test
+    void 範囲外のIDのロールは読み込めないこと() {
+        assertThatThrownBy(() -> RoleAuthorities.load(Collections.singletonList(role(65L, "範囲外"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static SLShopUserDetails copy(SLShopUserDetails source) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(source);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (SLShopUserDetails) in.readObject();
+        }
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+}
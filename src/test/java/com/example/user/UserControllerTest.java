@@ -19,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.example.cache.ReferenceData;
 import com.example.entity.User;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +29,9 @@ class UserControllerTest {
     @Mock
     private UserService mockUserService;
 
+    @Mock
+    private ReferenceData mockReferenceData;
+
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
     private UserController target;
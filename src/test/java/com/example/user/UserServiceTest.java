@@ -7,7 +7,10 @@ import static org.mockito.Mockito.*;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.dbunit.database.DatabaseConnection;
 import org.dbunit.database.IDatabaseConnection;
@@ -21,10 +24,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.example.cache.EntityCache;
+import com.example.cache.SearchResultCache;
 import com.example.entity.User;
+import com.example.security.SLShopUserDetails;
+import com.example.security.UserDetailsCache;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -32,6 +40,16 @@ class UserServiceTest {
     /** モック化したクラス */
     @Mock
     private UserRepository mockUserRepository;
+
+    @Mock
+    private SearchResultCache mockSearchResultCache;
+
+    /** 実物のキャッシュを利用する */
+    @Spy
+    private EntityCache entityCache = new EntityCache(100, 300);
+
+    @Spy
+    private UserDetailsCache userDetailsCache = new UserDetailsCache(100, 300);
     
     /** テスト対象クラスにモックを注入 */
     @InjectMocks
@@ -154,10 +172,8 @@ class UserServiceTest {
     void 管理者情報が存在する場合例外が発生しないこと() {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<User> user = Optional.of(new User());
 
-        doReturn(count).when(this.mockUserRepository).countById(id);
         doReturn(user).when(this.mockUserRepository).findById(id);
 
         assertThatCode(() -> {
@@ -181,7 +197,7 @@ class UserServiceTest {
     void 管理者情報が存在しない場合例外が発生すること() {
         Long id = 1000L;
 
-        doReturn(null).when(this.mockUserRepository).countById(id);
+        doReturn(Optional.empty()).when(this.mockUserRepository).findById(id);
         
         assertThatThrownBy(() -> {
             target.get(id);
@@ -206,14 +222,68 @@ class UserServiceTest {
     void 管理者情報の取得処理の検証() throws Exception {
         Long id = 1L;
         
-        Long count = 1L;
         Optional<User> user = Optional.of(new User());
 
-        doReturn(count).when(this.mockUserRepository).countById(id);
         doReturn(user).when(this.mockUserRepository).findById(id);
 
         User actual = this.target.get(id);
         assertThat(actual).isEqualTo(user.get());
         
     }
+
+    /**
+    * 管理者情報の削除処理の検証<br>
+    * 条件 削除した管理者情報が認証用キャッシュに保持されている場合<br>
+    * 結果 認証用キャッシュから破棄され、次回の認証時にDBから取得されること
+    */
+    @Test
+    void 管理者情報の削除時に認証用キャッシュが破棄されること() throws Exception {
+        Long id = 1L;
+        User user = new User("test@example.com", "test");
+        SLShopUserDetails cached = new SLShopUserDetails(user);
+        userDetailsCache.get(user.getEmail(), email -> cached);
+
+        doReturn(Optional.of(user)).when(this.mockUserRepository).findById(id);
+
+        this.target.delete(id);
+
+        SLShopUserDetails actual = userDetailsCache.get(user.getEmail(), email -> null);
+        assertThat(actual).isNull();
+    }
+
+    /**
+    * 管理者情報の検索処理の検証<br>
+    * 条件 検索キーワードが数字・メールアドレス・管理者名の場合<br>
+    * 結果 それぞれID・メールアドレスの前方一致・正規化した管理者名の部分一致で検索されること
+    */
+    @Test
+    void 検索キーワードの種類に応じた条件で検索されること() {
+        User user = new User("admin@example.com", "Admin");
+        List<User> users = Arrays.asList(user);
+
+        doAnswer(invocation -> invocation.<Supplier<List<User>>>getArgument(2).get())
+                .when(this.mockSearchResultCache).get(eq(User.class), anyString(), any());
+        doReturn(Optional.of(user)).when(this.mockUserRepository).findById(12L);
+        doReturn(users).when(this.mockUserRepository).searchByEmailPrefix("admin@");
+        doReturn(users).when(this.mockUserRepository).searchByName("adm");
+
+        assertThat(this.target.listAll("12")).containsExactly(user);
+        assertThat(this.target.listAll("admin@")).containsExactly(user);
+        assertThat(this.target.listAll(" ＡＤＭ ")).containsExactly(user);
+    }
+
+    /**
+    * 管理者情報の一覧取得処理の検証<br>
+    * 条件 検索キーワードが無い場合<br>
+    * 結果 ロール情報を結合して取得するクエリで全件取得されること
+    */
+    @Test
+    void 検索キーワードが無い場合ロール情報と共に全件取得されること() {
+        List<User> users = Arrays.asList(new User("admin@example.com", "Admin"));
+
+        doReturn(users).when(this.mockUserRepository).findAllWithRoles();
+
+        assertThat(this.target.listAll(null)).isEqualTo(users);
+        verify(this.mockUserRepository, never()).findAll();
+    }
 }